@@ -0,0 +1,34 @@
+package com.stirante.asem.benchmark;
+
+import com.stirante.asem.syntax.SyntaxAnalyzer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full analysis of a document: parsing, symbol index, argument verification and collision detection.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyzerBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int lines;
+
+    private String source;
+
+    @Setup
+    public void setup() {
+        source = Corpus.generate(lines);
+    }
+
+    @Benchmark
+    public SyntaxAnalyzer.AnalysisResult analyze() {
+        return SyntaxAnalyzer.analyze(source);
+    }
+
+}
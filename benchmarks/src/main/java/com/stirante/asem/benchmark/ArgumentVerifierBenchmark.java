@@ -0,0 +1,60 @@
+package com.stirante.asem.benchmark;
+
+import com.stirante.asem.syntax.ArgumentVerifier;
+import com.stirante.asem.syntax.SymbolIndex;
+import com.stirante.asem.syntax.SyntaxAnalyzer;
+import com.stirante.asem.syntax.code.CodeElement;
+import com.stirante.asem.syntax.code.FieldElement;
+import com.stirante.asem.syntax.code.RoutineElement;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verification of every instruction of the corpus against symbols defined in it, without parsing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArgumentVerifierBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int lines;
+
+    private String[] mnemonics;
+    private String[] args;
+    private SymbolIndex symbols;
+
+    @Setup
+    public void setup() {
+        String source = Corpus.generate(lines);
+        SyntaxAnalyzer.AnalysisResult result = SyntaxAnalyzer.analyze(source);
+        symbols = result.getSymbols();
+        List<String> m = new ArrayList<>();
+        List<String> a = new ArrayList<>();
+        for (String line : source.split("\n")) {
+            String statement = line.contains(";") ? line.substring(0, line.indexOf(';')) : line;
+            //instructions are indented, labels and field definitions aren't
+            if (statement.isEmpty() || !Character.isWhitespace(statement.charAt(0))) continue;
+            String[] parts = statement.trim().split("\\s+", 2);
+            m.add(parts[0].toUpperCase());
+            a.add(parts.length > 1 ? parts[1].replaceAll("\\s", "") : "");
+        }
+        mnemonics = m.toArray(new String[0]);
+        args = a.toArray(new String[0]);
+    }
+
+    @Benchmark
+    public void checkStatus(Blackhole bh) {
+        for (int i = 0; i < mnemonics.length; i++) {
+            bh.consume(ArgumentVerifier.checkStatus(mnemonics[i], args[i], symbols));
+        }
+    }
+
+}
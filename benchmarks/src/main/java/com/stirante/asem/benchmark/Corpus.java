@@ -0,0 +1,42 @@
+package com.stirante.asem.benchmark;
+
+/**
+ * Generates synthetic 8051 sources in the style of the new file template.
+ */
+public class Corpus {
+
+    private static final String[] BLOCK = {
+            "_write%d:",
+            "\tmov\tR2,A\t\t;save A to R2",
+            "_isBusy%d:",
+            "\tmovx\tA,@R1\t\t;get LCD state",
+            "\tjb\tACC.7,_isBusy%d\t;if LCD is busy, then jump to _isBusy",
+            "\tmov\tA,R2\t\t;restore A from R2",
+            "\tmovx\t@R0,A\t\t;write value to command byte",
+            "\tret",
+            "_writeText%d:",
+            "\tclr\tA",
+            "\tmovc\tA,@A+DPTR",
+            "\tjz\t_textEnd%d\t;if byte is 0, then it's end of string",
+            "\tacall\t_write%d",
+            "\tinc\tDPTR",
+            "\tsjmp\t_writeText%d",
+            "_textEnd%d:",
+            "\tmov\tA,#00111000b\t;function set DATA LENGTH=1,NUMBER=1,FONT=0",
+            "\tmov\tR0,#0ff80h\t\t;commands byte",
+            "var%d\tDATA\t%02Xh\t;generated field",
+            "\tljmp\t_write%d",
+    };
+
+    public static String generate(int lines) {
+        StringBuilder sb = new StringBuilder(lines * 24);
+        sb.append("ljmp\t_write0\norg\t0100h\n");
+        for (int i = 2; i < lines; i++) {
+            int block = i / BLOCK.length;
+            if (i > 2) sb.append('\n');
+            sb.append(String.format(BLOCK[i % BLOCK.length], block, 0x30 + block % 0x50));
+        }
+        return sb.toString();
+    }
+
+}
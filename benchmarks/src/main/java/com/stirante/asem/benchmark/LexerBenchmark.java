@@ -0,0 +1,83 @@
+package com.stirante.asem.benchmark;
+
+import com.stirante.asem.syntax.Lexer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares {@link Lexer} with regex based tokenization, which was used by the highlighter before.
+ * Tokens per second are reported as "tokens" secondary result. Lexer reports every token while regex only the styled
+ * ones, so operations per second (whole documents) are the fair comparison.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LexerBenchmark {
+    private static final String[] INSTRUCTIONS = {"PUSH", "POP", "MOV", "MOVX", "MOVC", "ADD", "ADDC", "SUBB", "INC", "DEC", "CLR", "CPL", "SETB", "SJMP", "AJMP", "LJMP", "ACALL", "LCALL", "RET", "RETI", "DJNZ", "CJNE", "JZ", "JNZ", "JC", "JNC", "JB", "JBC", "JNB", "ANL", "ORL", "XRL", "RL", "RLC", "RR", "RRC", "MUL", "DIV", "SWAP", "XCH", "XCHD", "DA", "NOP"};
+    private static final String[] DIRECTIVES = {"DB", "HIGH", "LOW", "ORG", "USING", "EQU", "SET", "CALL", "JMP", "END", "DATA", "BIT"};
+    private static final String[] ALIASES = {"SP", "DPL", "DPH", "PCON", "TCON", "TMOD", "TL0", "TL1", "TH0", "TH1", "SCON", "SBUF", "PCON", "IE", "IP", "PSW", "ACC", "P0\\.0", "P0\\.1", "P0\\.2", "P0\\.3", "P0\\.4", "P0\\.5", "P0\\.6", "P0\\.7", "P0", "P1\\.0", "P1\\.1", "P1\\.2", "P1\\.3", "P1\\.4", "P1\\.5", "P1\\.6", "P1\\.7", "P1", "P2\\.0", "P2\\.1", "P2\\.2", "P2\\.3", "P2\\.4", "P2\\.5", "P2\\.6", "P2\\.7", "P2", "P3\\.0", "P3\\.1", "P3\\.2", "P3\\.3", "P3\\.4", "P3\\.5", "P3\\.6", "P3\\.7", "P3", "ACC\\.0", "ACC\\.1", "ACC\\.2", "ACC\\.3", "ACC\\.4", "ACC\\.5", "ACC\\.6", "ACC\\.7", "B\\.0", "B\\.1", "B\\.2", "B\\.3", "B\\.4", "B\\.5", "B\\.6", "B\\.7", "AR0", "AR1", "AR2", "AR3", "AR4", "AR5", "AR6", "AR7", "IT0", "IE0", "IT1", "IE1", "TR0", "TF0", "TR1", "TF1", "RI", "TI", "RB8", "TB8", "REN", "SM2", "SM1", "SM0", "EX0", "ET0", "EX1", "ET1", "ES", "EA", "PT0", "PX1", "PT1", "PS", "P", "OV", "RS0", "RS1", "F0", "AC", "CY", "A", "AB", "B", "C", "R0", "R1", "R2", "R3", "R4", "R5", "R6", "R7", "@R0", "@R1", "@DPTR", "DPTR", "@A\\+DPTR", "@A\\+PC"};
+    //pattern used by SyntaxHighlighter before the lexer
+    private static final Pattern PATTERN = Pattern.compile(
+            "(?<COMMENT>;.*)"
+                    + "|(?<INSTRUCTION>\\b(" + String.join("|", (CharSequence[]) INSTRUCTIONS) + ")\\b)"
+                    + "|(?<DIRECTIVE>\\s(" + String.join("|", (CharSequence[]) DIRECTIVES) + ")\\b)"
+                    + "|(?<ALIAS>\\b(" + String.join("|", (CharSequence[]) ALIASES) + ")\\b)"
+                    + "|(?<NUMBER>\\W#?([01]+B|[0-9ABCDEF]+H|[0-9]+D?)\\b)"
+                    + "|(?<DOLLAR>\\$.+)"
+    );
+
+    @Param({"1000", "10000", "100000"})
+    public int lines;
+
+    private String source;
+
+    @Setup
+    public void setup() {
+        source = Corpus.generate(lines);
+    }
+
+    @Benchmark
+    public void regex(TokenCounter counter, Blackhole bh) {
+        Matcher matcher = PATTERN.matcher(source.toUpperCase());
+        while (matcher.find()) {
+            String styleClass =
+                    matcher.group("INSTRUCTION") != null ? "instruction" :
+                            matcher.group("DIRECTIVE") != null ? "directive" :
+                                    matcher.group("ALIAS") != null ? "alias" :
+                                            matcher.group("NUMBER") != null ? "number" :
+                                                    matcher.group("COMMENT") != null ? "comment" : "dollar-thingy";
+            bh.consume(styleClass);
+            bh.consume(matcher.start());
+            counter.tokens++;
+        }
+    }
+
+    @Benchmark
+    public void lexer(TokenCounter counter, Blackhole bh) {
+        Lexer lexer = new Lexer(source);
+        while (lexer.next()) {
+            bh.consume(lexer.getType());
+            bh.consume(lexer.getStart());
+            counter.tokens++;
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class TokenCounter {
+        public long tokens;
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            tokens = 0;
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.stirante.asem.benchmark;
+
+import com.stirante.asem.syntax.NumberParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link NumberParser} with string based parsing, which was used by the analyzer before. Each operation parses
+ * every literal from the sample once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NumberParserBenchmark {
+    //mix of literals found in field values, including invalid ones, which were handled by exceptions
+    private static final String[] LITERALS = {"30h", "#0FFh", "0BDh", "10110b", "127", "64d", "7Fh", "0", "P1.0", "8000h", "20h", "255", "#12", "ABC", "0CAh", "1"};
+
+    @Benchmark
+    public void stringBased(Blackhole bh) {
+        for (String literal : LITERALS) {
+            bh.consume(parseAddress(literal));
+        }
+    }
+
+    @Benchmark
+    public void numberParser(Blackhole bh) {
+        for (String literal : LITERALS) {
+            bh.consume(NumberParser.parse(literal, literal.startsWith("#") ? 1 : 0, literal.length()));
+        }
+    }
+
+    //SyntaxAnalyzer.parseAddress before NumberParser
+    private static int parseAddress(String s) {
+        String a = s.replace("#", "");
+        if (a.contains("b")) {
+            try {
+                return Integer.parseInt(a.replaceAll("b", ""), 2);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        } else if (a.contains("h")) {
+            try {
+                return Integer.parseInt(a.replaceAll("h", ""), 16);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        } else {
+            try {
+                return Integer.parseInt(a.replaceAll("d", ""));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+    }
+
+}
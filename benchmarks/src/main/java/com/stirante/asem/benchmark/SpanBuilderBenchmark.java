@@ -0,0 +1,67 @@
+package com.stirante.asem.benchmark;
+
+import com.stirante.asem.syntax.Lexer;
+import com.stirante.asem.utils.BetterSpanBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link BetterSpanBuilder} with highlighter-like regions: every styled token plus error and warning ranges
+ * overlapping them on every 20th line.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpanBuilderBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int chars;
+
+    private String source;
+    private int[] starts;
+    private int[] ends;
+    private String[] styles;
+    private int regions;
+
+    @Setup
+    public void setup() {
+        source = Corpus.generate(chars / 20 + 2).substring(0, chars);
+        starts = new int[chars];
+        ends = new int[chars];
+        styles = new String[chars];
+        Lexer lexer = new Lexer(source);
+        while (lexer.next()) {
+            if (lexer.getType() == Lexer.TokenType.OPERAND && !lexer.isAlias()) continue;
+            add(lexer.getType().name().toLowerCase(), lexer.getStart(), lexer.getEnd());
+        }
+        int line = 0;
+        for (int i = source.indexOf('\n'); i != -1; i = source.indexOf('\n', i + 1)) {
+            if (++line % 20 == 0) {
+                add("error", i + 1, Math.min(i + 12, chars));
+                add("warning", i + 4, Math.min(i + 30, chars));
+            }
+        }
+    }
+
+    private void add(String style, int start, int end) {
+        starts[regions] = start;
+        ends[regions] = end;
+        styles[regions] = style;
+        regions++;
+    }
+
+    @Benchmark
+    public void createStyleSpans(Blackhole bh) {
+        BetterSpanBuilder builder = new BetterSpanBuilder();
+        for (int i = 0; i < regions; i++) {
+            builder.addStyle(styles[i], starts[i], ends[i]);
+        }
+        bh.consume(builder.createStyleSpans(source));
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.stirante.asem.benchmark;
+
+import com.stirante.asem.Constants;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+
+/**
+ * Word under caret lookups, as done by CodeView.getWordAt for tooltips, go to definition and caret highlighting.
+ * Compares matching the word pattern over the whole text with scanning only around the index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WordAtBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int lines;
+
+    private String source;
+    private int[] indices;
+    private int next;
+
+    @Setup
+    public void setup() {
+        source = Corpus.generate(lines);
+        Random random = new Random(0);
+        indices = new int[1024];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = random.nextInt(source.length());
+        }
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (indices.length - 1);
+        return indices[next];
+    }
+
+    @Benchmark
+    public String wholeText() {
+        int index = nextIndex();
+        int start = index;
+        int end = index;
+        Matcher matcher = Constants.WORD.matcher(source);
+        while (matcher.find()) {
+            if (matcher.start() <= index && matcher.end() >= index) {
+                start = matcher.start();
+                end = matcher.end();
+            }
+        }
+        return source.substring(start, end);
+    }
+
+    @Benchmark
+    public String local() {
+        int index = nextIndex();
+        int start = index;
+        int end = index;
+        while (start > 0 && isWordPart(source.charAt(start - 1))) start--;
+        while (end < source.length() && isWordPart(source.charAt(end))) end++;
+        return source.substring(start, end);
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.';
+    }
+
+}
@@ -14,6 +14,10 @@ public class Constants {
     public static final String[] MNEMONIC_ARRAY = new String[]{"ACALL", "ADD", "ADDC", "AJMP", "ANL", "CJNE", "CLR", "CPL", "DA", "DEC", "DIV", "DJNZ", "INC", "JB", "JBC", "JC", "JMP", "JNB"
             , "JNC", "JNZ", "JZ", "LCALL", "LJMP", "MOV", "MOVC", "MOVX", "MUL", "NOP", "ORL", "POP", "PUSH", "RET", "RETI", "RL", "RLC", "RR", "RRC", "SETB", "SJMP", "SUBB", "SWAP", "XCH", "XCHD", "XRL"
     };
+    public static final String[] DIRECTIVE_ARRAY = new String[]{"DB", "DW", "DS", "HIGH", "LOW", "ORG", "USING", "EQU", "SET", "CALL", "END", "DATA", "IDATA", "XDATA", "BIT", "CODE", "CSEG", "DSEG", "ISEG", "BSEG", "XSEG"};
+    //directives, which define a symbol (name EQU value)
+    public static final String[] FIELD_TYPE_ARRAY = new String[]{"EQU", "SET", "DATA", "IDATA", "XDATA", "BIT", "CODE"};
+    public static final String[] ALIAS_ARRAY = new String[]{"SP", "DPL", "DPH", "PCON", "TCON", "TMOD", "TL0", "TL1", "TH0", "TH1", "SCON", "SBUF", "IE", "IP", "PSW", "ACC", "P0.0", "P0.1", "P0.2", "P0.3", "P0.4", "P0.5", "P0.6", "P0.7", "P0", "P1.0", "P1.1", "P1.2", "P1.3", "P1.4", "P1.5", "P1.6", "P1.7", "P1", "P2.0", "P2.1", "P2.2", "P2.3", "P2.4", "P2.5", "P2.6", "P2.7", "P2", "P3.0", "P3.1", "P3.2", "P3.3", "P3.4", "P3.5", "P3.6", "P3.7", "P3", "ACC.0", "ACC.1", "ACC.2", "ACC.3", "ACC.4", "ACC.5", "ACC.6", "ACC.7", "B.0", "B.1", "B.2", "B.3", "B.4", "B.5", "B.6", "B.7", "AR0", "AR1", "AR2", "AR3", "AR4", "AR5", "AR6", "AR7", "IT0", "IE0", "IT1", "IE1", "TR0", "TF0", "TR1", "TF1", "RI", "TI", "RB8", "TB8", "REN", "SM2", "SM1", "SM0", "EX0", "ET0", "EX1", "ET1", "ES", "EA", "PT0", "PX1", "PT1", "PS", "P", "OV", "RS0", "RS1", "F0", "AC", "CY", "A", "AB", "B", "C", "R0", "R1", "R2", "R3", "R4", "R5", "R6", "R7", "@R0", "@R1", "@DPTR", "DPTR", "@A+DPTR", "@A+PC"};
     public static final String NEW_TEMPLATE = ";This is just simple example, which writes 'Hello, Assembler Studio! :)' to LCD.\n" +
             ";It's not perfect and I'm not responsible for any bugs or issues it may have.\n" +
             ";It's main purpose is to just make sure everything works and also showcase some of the features.\n" +
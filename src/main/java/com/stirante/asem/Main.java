@@ -2,6 +2,7 @@ package com.stirante.asem;
 
 import com.stirante.asem.ui.*;
 import com.stirante.asem.utils.AsyncTask;
+import com.stirante.asem.utils.TaskPool;
 import com.stirante.asem.utils.UpdateUtil;
 import javafx.application.Application;
 import javafx.fxml.FXML;
@@ -205,32 +206,30 @@ public class Main extends Application {
 
     public void onCompileClicked() {
         if (hasOpenTab()) {
-            if (!getOpenTab().save()) {
-                compileResult.setText("You need to save file first!");
-                return;
-            }
-            //compile async
-            new AsyncTask<Void, Void, String>() {
+            CodeView tab = getOpenTab();
+            //compile async after the file is written
+            if (!tab.save(() -> new AsyncTask<Void, Void, String>(TaskPool.Priority.IO) {
                 @Override
                 public String doInBackground(Void[] params) {
-                    return getOpenTab().compile();
+                    return tab.compile();
                 }
 
                 @Override
                 public void onPostExecute(String compileResult) {
                     Main.this.compileResult.setText(compileResult);
                 }
-            }.execute();
+            }.execute())) {
+                compileResult.setText("You need to save file first!");
+            }
         }
     }
 
     public void onSendClicked() {
         if (hasOpenTab()) {
-            if (!getOpenTab().save()) {
+            CodeView tab = getOpenTab();
+            if (!tab.save(() -> compileResult.setText(tab.sendHex()))) {
                 compileResult.setText("You need to save and compile file first!");
-                return;
             }
-            compileResult.setText(getOpenTab().sendHex());
         }
     }
 
@@ -366,11 +365,10 @@ public class Main extends Application {
 
     public void onRunClicked() {
         if (hasOpenTab()) {
-            if (!getOpenTab().save()) {
+            CodeView tab = getOpenTab();
+            if (!tab.save(() -> compileResult.setText(tab.run()))) {
                 compileResult.setText("You need to save and compile file first!");
-                return;
             }
-            compileResult.setText(getOpenTab().run());
         }
     }
 
@@ -389,6 +387,10 @@ public class Main extends Application {
         HelpDialog.show();
     }
 
+    public void onMetricsClicked() {
+        MetricsDialog.show();
+    }
+
     public void onForceUpdateClicked() {
         try {
             Runtime.getRuntime().exec("java -jar SimpleUpdater.jar check .");
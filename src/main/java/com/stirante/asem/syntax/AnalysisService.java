@@ -0,0 +1,102 @@
+package com.stirante.asem.syntax;
+
+import com.stirante.asem.utils.TaskPool;
+import javafx.application.Platform;
+import org.fxmisc.richtext.model.PlainTextChange;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs syntax analysis of a single document in background. Every edit gets next version number and only result
+ * computed for the newest version is published to the listener on FX application thread. Edits are applied in order
+ * by at most one task of the shared {@link TaskPool} at a time.
+ */
+public class AnalysisService {
+
+    private final IncrementalAnalyzer analyzer = new IncrementalAnalyzer();
+    private final AtomicLong version = new AtomicLong(0);
+    private final Consumer<SyntaxAnalyzer.AnalysisResult> listener;
+    private final Queue<Snapshot> pending = new ConcurrentLinkedQueue<>();
+    //true while there is a task applying pending edits
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private volatile boolean closed;
+
+    public AnalysisService(Consumer<SyntaxAnalyzer.AnalysisResult> listener) {
+        this.listener = listener;
+    }
+
+    public long reset(String text) {
+        return submit(new Snapshot(version.incrementAndGet(), text, null));
+    }
+
+    public long submit(PlainTextChange change) {
+        return submit(Collections.singletonList(change));
+    }
+
+    //changes made at once, like the ones of a single multi change, are analyzed as one version
+    public long submit(List<PlainTextChange> changes) {
+        return submit(new Snapshot(version.incrementAndGet(), null, changes));
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public void shutdown() {
+        closed = true;
+        pending.clear();
+    }
+
+    private long submit(Snapshot snapshot) {
+        if (closed) return snapshot.version;
+        pending.add(snapshot);
+        if (draining.compareAndSet(false, true)) TaskPool.submit(TaskPool.Priority.ANALYSIS, this::drain);
+        return snapshot.version;
+    }
+
+    private void drain() {
+        do {
+            Snapshot snapshot;
+            while (!closed && (snapshot = pending.poll()) != null) {
+                process(snapshot);
+            }
+            draining.set(false);
+            //edit could be added after the last poll, but before draining was cleared
+        } while (!closed && !pending.isEmpty() && draining.compareAndSet(false, true));
+    }
+
+    private void process(Snapshot snapshot) {
+        if (snapshot.text != null) {
+            analyzer.reset(snapshot.text);
+        } else {
+            analyzer.applyChanges(snapshot.changes);
+        }
+        //newer edit is already waiting, so there is no point in building result for this one
+        if (snapshot.version != version.get()) return;
+        SyntaxAnalyzer.AnalysisResult result = analyzer.getResult();
+        result.setVersion(snapshot.version);
+        Platform.runLater(() -> {
+            if (snapshot.version == version.get()) listener.accept(result);
+        });
+    }
+
+    //immutable edit of the document, either whole new text or changes made at once
+    private static class Snapshot {
+        private final long version;
+        private final String text;
+        private final List<PlainTextChange> changes;
+
+        private Snapshot(long version, String text, List<PlainTextChange> changes) {
+            this.version = version;
+            this.text = text;
+            this.changes = changes;
+        }
+    }
+
+}
@@ -1,104 +1,158 @@
 package com.stirante.asem.syntax;
 
+import com.stirante.asem.syntax.code.CodeElement;
 import com.stirante.asem.syntax.code.FieldElement;
 import com.stirante.asem.syntax.code.RoutineElement;
 
-import java.lang.reflect.Field;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.regex.Matcher;
+import java.util.Locale;
 import java.util.regex.Pattern;
 
 /**
  * Created by stirante
  */
 public class ArgumentVerifier {
+    private static final Pattern SYMBOL = Pattern.compile("[a-zA-Z_?][\\w?]*");
+    private static final String[] NO_ARGS = new String[0];
 
-    public static MatchType checkStatus(String mnemonic, String args, List<FieldElement> fields, List<RoutineElement> routines) {
-        String[] split = args.split(",");
-        Field[] fs = MnemonicArguments.class.getDeclaredFields();
-        for (Field f : fs) {
-            if (f.getName().equals(mnemonic) && f.getType() == Type[][].class) {
-                try {
-                    f.setAccessible(true);
-                    Type[][] arr = (Type[][]) f.get(null);
-                    for (Type[] types : arr) {
-                        if (types.length == split.length) {
-                            int match = 0;
-                            for (int i = 0; i < types.length; i++) {
-                                MatchType type = types[i].matches(split[i], fields, routines);
-                                if (type == MatchType.MATCH) {
-                                    match++;
-                                } else if (type == MatchType.UNKNOWN_SYMBOL) {
-                                    return type;
-                                }
-                            }
-                            if (match == types.length) return MatchType.MATCH;
-                            return MatchType.NOT_MATCH;
-                        }
-                    }
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
-                }
-            }
+    public static MatchType checkStatus(String mnemonic, String args, SymbolIndex symbols) {
+        OperandForm[] forms = OpcodeTable.get(mnemonic);
+        if (forms == null) return MatchType.MATCH;
+        String[] split = args.isEmpty() ? NO_ARGS : args.split(",", -1);
+        MatchType result = MatchType.NOT_MATCH;
+        for (OperandForm form : forms) {
+            MatchType type = form.matches(split, symbols);
+            if (type == MatchType.MATCH) return type;
+            if (type == MatchType.UNKNOWN_SYMBOL) result = type;
+        }
+        return result;
+    }
+
+    //whether operand is a name of register, which can't be used as an address
+    static boolean isRegister(String str) {
+        if (str.isEmpty()) return false;
+        char c = str.charAt(0);
+        if (c == '#' || c == '@' || c == '/') return true;
+        switch (str.toUpperCase()) {
+            case "A":
+            case "AB":
+            case "C":
+            case "DPTR":
+                return true;
+            default:
+                return Type.REGISTER.matches(str, null) == MatchType.MATCH;
         }
-        return MatchType.MATCH;
-//        switch (mnemonic) {
-//            case "MOV":
-//                for (Type[] types : MOV) {
-//                    if (types[0].matches(split[0], fields, routines) && types[1].matches(split[1], fields, routines)) return true;
-//                }
-//                return MatchType.MATCH;
-//            case "JZ":
-//                for (Type[] types : MnemonicArguments.JZ) {
-//                    MatchType type = types[0].matches(args, fields, routines);
-//                    if (type == MatchType.MATCH || type == MatchType.UNKNOWN_SYMBOL) return type;
-//                }
-//                return MatchType.NOT_MATCH;
-//            default:
-//                return MatchType.MATCH;
-//        }
     }
 
-    enum Type {
-        A_B("[aA][bB]"),
-        AT_R0("@[rR]0"),
-        AT_R1("@[rR]1"),
-        C("[cC]"),
-        R0("[rR]0"),
-        R1("[rR]1"),
-        R2("[rR]2"),
-        R3("[rR]3"),
-        R4("[rR]4"),
-        R5("[rR]5"),
-        R6("[rR]6"),
-        R7("[rR]7"),
-        BIT_ADDR(".+"),//TODO
-        IRAM_ADDR(".+"),//TODO
-        CODE_ADDR("([a-zA-Z0-9_]+)"),
-        DATA("#([0-9abcdefABCDEF]+[hH]|[0-9]+[dD]?|[01]+[bB])"),
-        DATA_16("#([0-9abcdefABCDEF]+[hH]|[0-9]+[dD]?|[01]+[bB])"),
-        DPTR("[dD][pP][tT][rR]"),
-        A("[aA]");
+    public enum Type {
+        //accumulator
+        A,
+        //accumulator and B register pair, used by MUL and DIV
+        AB,
+        //carry flag
+        C,
+        DPTR,
+        //R0-R7
+        REGISTER,
+        //@R0 or @R1
+        INDIRECT,
+        AT_DPTR,
+        AT_A_DPTR,
+        AT_A_PC,
+        //#data
+        DATA,
+        //#data16
+        DATA_16,
+        //direct internal RAM or SFR address
+        IRAM_ADDR,
+        BIT_ADDR,
+        //negated bit address (/bit)
+        NOT_BIT_ADDR,
+        //relative, absolute or long code address
+        CODE_ADDR;
 
-        private final Pattern pattern;
+        MatchType matches(String str, SymbolIndex symbols) {
+            switch (this) {
+                case A:
+                    return match(str.equalsIgnoreCase("A"));
+                case AB:
+                    return match(str.equalsIgnoreCase("AB"));
+                case C:
+                    return match(str.equalsIgnoreCase("C"));
+                case DPTR:
+                    return match(str.equalsIgnoreCase("DPTR"));
+                case REGISTER:
+                    return match(str.length() == 2 && Character.toUpperCase(str.charAt(0)) == 'R' && str.charAt(1) >= '0' && str.charAt(1) <= '7');
+                case INDIRECT:
+                    return match(str.equalsIgnoreCase("@R0") || str.equalsIgnoreCase("@R1"));
+                case AT_DPTR:
+                    return match(str.equalsIgnoreCase("@DPTR"));
+                case AT_A_DPTR:
+                    return match(str.equalsIgnoreCase("@A+DPTR"));
+                case AT_A_PC:
+                    return match(str.equalsIgnoreCase("@A+PC"));
+                case DATA:
+                case DATA_16:
+                    if (str.length() < 2 || str.charAt(0) != '#') return MatchType.NOT_MATCH;
+                    return value(str, 1);
+                case IRAM_ADDR:
+                case BIT_ADDR:
+                    if (isRegister(str)) return MatchType.NOT_MATCH;
+                    return value(str, 0);
+                case NOT_BIT_ADDR:
+                    if (str.length() < 2 || str.charAt(0) != '/') return MatchType.NOT_MATCH;
+                    return BIT_ADDR.matches(str.substring(1), symbols);
+                case CODE_ADDR:
+                    if (isRegister(str)) return MatchType.NOT_MATCH;
+                    if (SYMBOL.matcher(str).matches()) {
+                        return symbols.contains(str) ? MatchType.MATCH : MatchType.UNKNOWN_SYMBOL;
+                    }
+                    return value(str, 0);
+                default:
+                    return MatchType.NOT_MATCH;
+            }
+        }
+
+        //whether symbol defined in the code is a value of this operand type; symbols of other types still match, since
+        //only numbers are checked, but they aren't suggested
+        boolean accepts(CodeElement element) {
+            if (element instanceof RoutineElement) return this == DATA_16 || this == CODE_ADDR;
+            FieldElement field = (FieldElement) element;
+            if (field.getFieldType() == null) return false;
+            switch (field.getFieldType().toUpperCase(Locale.ROOT)) {
+                case "EQU":
+                case "SET":
+                    return this == DATA || this == DATA_16 || this == IRAM_ADDR;
+                case "DATA":
+                    return this == IRAM_ADDR;
+                case "IDATA":
+                    //above 7Fh direct address is an SFR, that part of RAM is reachable only indirectly
+                    if (this != IRAM_ADDR || field.getValue() == null) return false;
+                    int address = NumberParser.parse(field.getValue().trim());
+                    return address != NumberParser.INVALID && address < 0x80;
+                case "BIT":
+                    return this == BIT_ADDR || this == NOT_BIT_ADDR;
+                case "XDATA":
+                    return this == DATA_16;
+                case "CODE":
+                    return this == DATA_16 || this == CODE_ADDR;
+                default:
+                    return false;
+            }
+        }
 
-        Type(String regex) {
-            pattern = Pattern.compile("^" + regex + "$");
+        private static MatchType match(boolean b) {
+            return b ? MatchType.MATCH : MatchType.NOT_MATCH;
         }
 
-        MatchType matches(String str, List<FieldElement> fields, List<RoutineElement> routines) {
-            Matcher matcher = pattern.matcher(str);
-            if (matcher.matches() && matcher.groupCount() == 1) {
-                String routine = matcher.group(1);
-                for (RoutineElement routineElement : routines) {
-                    if (routineElement.getName().equalsIgnoreCase(routine)) return MatchType.MATCH;
-                }
-                return MatchType.UNKNOWN_SYMBOL;
-            } else if (matcher.matches()) {
-                return MatchType.MATCH;
+        //number, symbol or expression starting at index, only numbers are checked
+        private static MatchType value(String str, int start) {
+            if (str.length() <= start) return MatchType.NOT_MATCH;
+            if (!Character.isDigit(str.charAt(start))) return MatchType.MATCH;
+            for (int i = start; i < str.length(); i++) {
+                //expression like 1+2 or bit of a byte like 20h.1
+                if (!Character.isLetterOrDigit(str.charAt(i))) return MatchType.MATCH;
             }
-            return MatchType.NOT_MATCH;
+            return match(NumberParser.parse(str, start, str.length()) != NumberParser.INVALID);
         }
 
     }
@@ -107,4 +161,4 @@ public class ArgumentVerifier {
         MATCH, NOT_MATCH, UNKNOWN_SYMBOL
     }
 
-}
\ No newline at end of file
+}
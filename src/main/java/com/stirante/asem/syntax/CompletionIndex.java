@@ -0,0 +1,193 @@
+package com.stirante.asem.syntax;
+
+import com.stirante.asem.Constants;
+
+import java.util.*;
+
+/**
+ * Names sorted by case folded form, searched for completions of typed word. Names starting with the word are found by
+ * binary search and rank first, then names matching it by camel humps (LI finds LCD_INIT and lcdInit) and then names
+ * containing all its chars in order. When the word only grows, previous suggestions can be narrowed instead of
+ * searching the whole index again.
+ */
+public class CompletionIndex {
+
+    public static final CompletionIndex MNEMONICS = new CompletionIndex(Constants.MNEMONIC_ARRAY, Kind.MNEMONIC);
+    public static final CompletionIndex ALIASES = new CompletionIndex(Constants.ALIAS_ARRAY, Kind.ALIAS);
+    public static final CompletionIndex EMPTY = new CompletionIndex(new String[0], Kind.FIELD);
+
+    public enum Kind {
+        MNEMONIC,
+        ALIAS,
+        FIELD,
+        ROUTINE,
+        //register or addressing mode used as an operand
+        REGISTER
+    }
+
+    public enum Match {
+        PREFIX,
+        CAMEL_HUMP,
+        FUZZY
+    }
+
+    private static final Comparator<Suggestion> ORDER = Comparator.<Suggestion, Match>comparing(s -> s.match)
+            .thenComparingInt(s -> s.name.length())
+            .thenComparing(s -> s.folded);
+
+    private final String[] names;
+    private final String[] folded;
+    private final Kind[] kinds;
+
+    CompletionIndex(String[] names, Kind kind) {
+        Kind[] kinds = new Kind[names.length];
+        Arrays.fill(kinds, kind);
+        String[] sorted = names.clone();
+        Arrays.sort(sorted, Comparator.comparing(CompletionIndex::fold));
+        this.names = sorted;
+        this.kinds = kinds;
+        this.folded = foldAll(sorted);
+    }
+
+    //names have to be sorted by their folded form
+    CompletionIndex(String[] names, String[] folded, Kind[] kinds) {
+        this.names = names;
+        this.folded = folded;
+        this.kinds = kinds;
+    }
+
+    private static String[] foldAll(String[] names) {
+        String[] result = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            result[i] = fold(names[i]);
+        }
+        return result;
+    }
+
+    private static String fold(String name) {
+        return name.toUpperCase(Locale.ROOT);
+    }
+
+    //adds all names matching the word to out, unsorted
+    public void find(String word, List<Suggestion> out) {
+        find(word, "", out);
+    }
+
+    //same as find(word, out), but suggested text is name with lead, like # of immediate data
+    public void find(String word, String lead, List<Suggestion> out) {
+        String query = fold(word);
+        int from = Arrays.binarySearch(folded, query);
+        if (from < 0) {
+            from = -from - 1;
+        } else {
+            while (from > 0 && folded[from - 1].equals(query)) from--;
+        }
+        int to = from;
+        while (to < folded.length && folded[to].startsWith(query)) to++;
+        for (int i = from; i < to; i++) {
+            out.add(new Suggestion(names[i], folded[i], kinds[i], Match.PREFIX, lead));
+        }
+        //empty word is a prefix of everything
+        if (query.isEmpty()) return;
+        for (int i = 0; i < folded.length; i++) {
+            //prefix matches are already added
+            if (i == from && to > from) {
+                i = to - 1;
+                continue;
+            }
+            Match match = matchNonPrefix(names[i], folded[i], query);
+            if (match != null) out.add(new Suggestion(names[i], folded[i], kinds[i], match, lead));
+        }
+    }
+
+    //suggestions, which still match the word, ranked again; any match of longer word is a match of its prefix too
+    public static List<Suggestion> narrow(List<Suggestion> suggestions, String word) {
+        String query = fold(word);
+        List<Suggestion> result = new ArrayList<>(suggestions.size());
+        for (Suggestion s : suggestions) {
+            Match match = s.folded.startsWith(query) ? Match.PREFIX : matchNonPrefix(s.name, s.folded, query);
+            if (match == null) continue;
+            result.add(match == s.match ? s : new Suggestion(s.name, s.folded, s.kind, match, s.lead));
+        }
+        sort(result);
+        return result;
+    }
+
+    //best matches first, then shorter names
+    public static void sort(List<Suggestion> suggestions) {
+        suggestions.sort(ORDER);
+    }
+
+    private static Match matchNonPrefix(String name, String folded, String query) {
+        if (query.length() > folded.length()) return null;
+        //camel hump match is a subsequence too, so most names are rejected by this linear scan before recursion
+        int j = 0;
+        for (int i = 0; i < folded.length() && j < query.length(); i++) {
+            if (folded.charAt(i) == query.charAt(j)) j++;
+        }
+        if (j < query.length()) return null;
+        return matchesHumps(name, folded, query, 0, 0) ? Match.CAMEL_HUMP : Match.FUZZY;
+    }
+
+    //query[q..] matches name from position n, where n is a start of a hump or continues the current one
+    private static boolean matchesHumps(String name, String folded, String query, int q, int n) {
+        if (q == query.length()) return true;
+        char c = query.charAt(q);
+        //continue the current hump
+        if (n > 0 && n < folded.length() && folded.charAt(n) == c && !isHumpStart(name, n)
+                && matchesHumps(name, folded, query, q + 1, n + 1)) return true;
+        //or jump to one of the next humps
+        for (int i = n; i < folded.length(); i++) {
+            if (folded.charAt(i) == c && isHumpStart(name, i) && matchesHumps(name, folded, query, q + 1, i + 1))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean isHumpStart(String name, int i) {
+        if (i == 0) return true;
+        char c = name.charAt(i);
+        char prev = name.charAt(i - 1);
+        if (!Character.isLetterOrDigit(c)) return false;
+        if (!Character.isLetterOrDigit(prev)) return true;
+        return Character.isUpperCase(c) && Character.isLowerCase(prev);
+    }
+
+    public static class Suggestion {
+        private final String name;
+        private final String folded;
+        private final Kind kind;
+        private final Match match;
+        private final String lead;
+
+        private Suggestion(String name, String folded, Kind kind, Match match, String lead) {
+            this.name = name;
+            this.folded = folded;
+            this.kind = kind;
+            this.match = match;
+            this.lead = lead;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getLead() {
+            return lead;
+        }
+
+        //text to insert, name with its lead
+        public String getText() {
+            return lead + name;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public Match getMatch() {
+            return match;
+        }
+    }
+
+}
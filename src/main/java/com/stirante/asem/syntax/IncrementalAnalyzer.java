@@ -0,0 +1,128 @@
+package com.stirante.asem.syntax;
+
+import org.fxmisc.richtext.model.PlainTextChange;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps parsed lines of the document and re-parses only lines touched by a change.
+ * Result is always the same as {@link SyntaxAnalyzer#analyze(String)} for the current text.
+ * Result is built lazily, so multiple changes can be applied before asking for it.
+ */
+public class IncrementalAnalyzer {
+
+    private final List<ParsedLine> lines = new ArrayList<>();
+    private final Lexer lexer = new Lexer();
+    private Set<String> symbolNames = Collections.emptySet();
+    private SyntaxAnalyzer.AnalysisResult result;
+    //symbols of the last result, reused by the next one, unless a line defining a symbol was changed since then
+    private SymbolIndex symbols;
+
+    public IncrementalAnalyzer() {
+        reset("");
+    }
+
+    public void reset(String text) {
+        lines.clear();
+        for (String line : text.split("\n", -1)) {
+            lines.add(new ParsedLine(line, lexer));
+        }
+        symbolNames = collectSymbolNames();
+        result = null;
+        symbols = null;
+    }
+
+    public void applyChange(PlainTextChange change) {
+        applyChanges(Collections.singletonList(change));
+    }
+
+    //changes in the order they were made, like the ones of a single multi change
+    public void applyChanges(List<PlainTextChange> changes) {
+        boolean symbolsChanged = false;
+        int first = 0;
+        int lineOffset = 0;
+        for (PlainTextChange change : changes) {
+            int position = change.getPosition();
+            String removed = change.getRemoved();
+            //lines before the previous change are untouched, so search for the line can continue from there
+            if (position < lineOffset) {
+                first = 0;
+                lineOffset = 0;
+            }
+            //find line containing start of the change
+            while (first < lines.size() - 1 && lineOffset + lines.get(first).length() < position) {
+                lineOffset += lines.get(first).length() + 1;
+                first++;
+            }
+            int column = position - lineOffset;
+            int removedLines = 0;
+            int lastBreak = -1;
+            for (int i = 0; i < removed.length(); i++) {
+                if (removed.charAt(i) == '\n') {
+                    removedLines++;
+                    lastBreak = i;
+                }
+            }
+            int last = first + removedLines;
+            int tailStart = removedLines == 0 ? column + removed.length() : removed.length() - lastBreak - 1;
+            String region = lines.get(first).text.substring(0, column) + change.getInserted() + lines.get(last).text.substring(tailStart);
+
+            List<ParsedLine> replaced = lines.subList(first, last + 1);
+            for (ParsedLine line : replaced) {
+                symbolsChanged |= line.routine || line.field;
+            }
+            String[] split = region.split("\n", -1);
+            if (split.length == replaced.size()) {
+                //same number of lines, so the rest of the list doesn't have to be moved
+                for (int i = 0; i < split.length; i++) {
+                    ParsedLine parsed = new ParsedLine(split[i], lexer);
+                    symbolsChanged |= parsed.routine || parsed.field;
+                    replaced.set(i, parsed);
+                }
+            } else {
+                replaced.clear();
+                List<ParsedLine> inserted = new ArrayList<>(split.length);
+                for (String line : split) {
+                    ParsedLine parsed = new ParsedLine(line, lexer);
+                    symbolsChanged |= parsed.routine || parsed.field;
+                    inserted.add(parsed);
+                }
+                lines.addAll(first, inserted);
+            }
+        }
+
+        //unknown symbol errors depend on symbol names, so cached verification is valid only if they didn't change
+        if (symbolsChanged) {
+            symbols = null;
+            Set<String> names = collectSymbolNames();
+            if (!names.equals(symbolNames)) {
+                symbolNames = names;
+                for (ParsedLine line : lines) {
+                    line.status = null;
+                }
+            }
+        }
+        result = null;
+    }
+
+    public SyntaxAnalyzer.AnalysisResult getResult() {
+        if (result == null) {
+            result = SyntaxAnalyzer.analyze(lines, symbols);
+            symbols = result.getSymbols();
+        }
+        return result;
+    }
+
+    private Set<String> collectSymbolNames() {
+        Set<String> names = new HashSet<>();
+        for (ParsedLine line : lines) {
+            if (line.routine || line.field) names.add(line.name.toUpperCase());
+        }
+        return names;
+    }
+
+}
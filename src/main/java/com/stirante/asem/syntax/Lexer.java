@@ -0,0 +1,257 @@
+package com.stirante.asem.syntax;
+
+import com.stirante.asem.Constants;
+
+/**
+ * Single pass lexer for 8051 assembly. It doesn't create any objects per token, instead current token is described by
+ * {@link #getType()}, {@link #getStart()} and {@link #getEnd()}, which are updated by each call to {@link #next()}.
+ */
+public class Lexer {
+
+    public enum TokenType {
+        //routine label (name:) or name of defined symbol (name EQU 5)
+        LABEL,
+        MNEMONIC,
+        DIRECTIVE,
+        //register, symbol or any other word used as an argument
+        OPERAND,
+        NUMBER,
+        STRING,
+        COMMENT,
+        //assembler control line ($MOD51)
+        CONTROL
+    }
+
+    private static final int MNEMONIC = 1;
+    private static final int DIRECTIVE = 2;
+    private static final int FIELD_TYPE = 4;
+    private static final int ALIAS = 8;
+    private static final KeywordTable KEYWORDS = new KeywordTable(512);
+
+    static {
+        KEYWORDS.add(Constants.MNEMONIC_ARRAY, MNEMONIC);
+        KEYWORDS.add(Constants.DIRECTIVE_ARRAY, DIRECTIVE);
+        KEYWORDS.add(Constants.FIELD_TYPE_ARRAY, DIRECTIVE | FIELD_TYPE);
+        KEYWORDS.add(Constants.ALIAS_ARRAY, ALIAS);
+    }
+
+    private CharSequence text;
+    private int position;
+    private int limit;
+    //true until first word of the statement on current line
+    private boolean statement;
+    //true if there was only whitespace before current position on the line
+    private boolean lineStart;
+    private TokenType type;
+    private int start;
+    private int end;
+    private int keyword;
+
+    public Lexer() {
+        reset("");
+    }
+
+    public Lexer(CharSequence text) {
+        reset(text);
+    }
+
+    public void reset(CharSequence text) {
+        reset(text, 0, text.length());
+    }
+
+    //from has to point at the beginning of a line
+    public void reset(CharSequence text, int from, int to) {
+        this.text = text;
+        position = from;
+        limit = to;
+        statement = true;
+        lineStart = true;
+        type = null;
+        start = from;
+        end = from;
+        keyword = -1;
+    }
+
+    public boolean next() {
+        while (position < limit) {
+            char c = text.charAt(position);
+            if (c == '\n') {
+                position++;
+                statement = true;
+                lineStart = true;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                position++;
+                continue;
+            }
+            boolean firstOnLine = lineStart;
+            lineStart = false;
+            start = position;
+            keyword = -1;
+            if (c == ';') {
+                return token(TokenType.COMMENT, lineEnd(position));
+            }
+            if (c == '$') {
+                if (firstOnLine) return token(TokenType.CONTROL, lineEnd(position));
+                //location counter
+                statement = false;
+                return token(TokenType.OPERAND, position + 1);
+            }
+            if (c == '"' || c == '\'') {
+                int i = position + 1;
+                while (i < limit && text.charAt(i) != c && text.charAt(i) != '\n') i++;
+                statement = false;
+                return token(TokenType.STRING, i < limit && text.charAt(i) == c ? i + 1 : i);
+            }
+            if (c == '#' && position + 1 < limit && isDigit(text.charAt(position + 1))) {
+                statement = false;
+                return token(TokenType.NUMBER, wordEnd(position + 1));
+            }
+            if (isDigit(c)) {
+                statement = false;
+                return token(TokenType.NUMBER, wordEnd(position));
+            }
+            if (isWordStart(c) || c == '@') {
+                return word();
+            }
+            //punctuation
+            position++;
+        }
+        type = null;
+        return false;
+    }
+
+    private boolean word() {
+        int wordEnd = wordEnd(start + 1);
+        //@A+DPTR and @A+PC
+        if (text.charAt(start) == '@' && wordEnd < limit && text.charAt(wordEnd) == '+') {
+            wordEnd = wordEnd(wordEnd + 1);
+        }
+        keyword = KEYWORDS.find(text, start, wordEnd);
+        int flags = keyword == -1 ? 0 : KEYWORDS.flags[keyword];
+        if (!statement) {
+            return token((flags & DIRECTIVE) != 0 ? TokenType.DIRECTIVE : TokenType.OPERAND, wordEnd);
+        }
+        if (wordEnd < limit && text.charAt(wordEnd) == ':') {
+            //label doesn't end the statement, it can be followed by an instruction
+            token(TokenType.LABEL, wordEnd);
+            position = wordEnd + 1;
+            return true;
+        }
+        statement = false;
+        if ((flags & MNEMONIC) != 0) return token(TokenType.MNEMONIC, wordEnd);
+        if ((flags & DIRECTIVE) != 0) return token(TokenType.DIRECTIVE, wordEnd);
+        if ((nextWordFlags(wordEnd) & FIELD_TYPE) != 0) return token(TokenType.LABEL, wordEnd);
+        return token(TokenType.OPERAND, wordEnd);
+    }
+
+    private boolean token(TokenType type, int end) {
+        this.type = type;
+        this.end = end;
+        position = end;
+        return true;
+    }
+
+    private int nextWordFlags(int from) {
+        int i = from;
+        while (i < limit && text.charAt(i) != '\n' && Character.isWhitespace(text.charAt(i))) i++;
+        if (i == limit || !isWordStart(text.charAt(i))) return 0;
+        int k = KEYWORDS.find(text, i, wordEnd(i));
+        return k == -1 ? 0 : KEYWORDS.flags[k];
+    }
+
+    private int lineEnd(int from) {
+        int i = from;
+        while (i < limit && text.charAt(i) != '\n') i++;
+        return i;
+    }
+
+    private int wordEnd(int from) {
+        int i = from;
+        while (i < limit && isWordPart(text.charAt(i))) i++;
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWordStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '?';
+    }
+
+    private static boolean isWordPart(char c) {
+        return isWordStart(c) || isDigit(c) || c == '.';
+    }
+
+    public TokenType getType() {
+        return type;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    //upper case keyword matching current token or null, if it's not a keyword
+    public String getKeyword() {
+        return keyword == -1 ? null : KEYWORDS.keys[keyword];
+    }
+
+    //whether current token is a register or special function register name
+    public boolean isAlias() {
+        return keyword != -1 && (KEYWORDS.flags[keyword] & ALIAS) != 0;
+    }
+
+    //case insensitive open addressing hash table, which can be queried with a part of char sequence
+    private static class KeywordTable {
+        private final String[] keys;
+        private final int[] flags;
+        private final int mask;
+
+        private KeywordTable(int capacity) {
+            keys = new String[capacity];
+            flags = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        private void add(String[] words, int flag) {
+            for (String word : words) {
+                int i = hash(word, 0, word.length()) & mask;
+                while (keys[i] != null && !keys[i].equals(word)) i = (i + 1) & mask;
+                keys[i] = word;
+                flags[i] |= flag;
+            }
+        }
+
+        private int find(CharSequence s, int start, int end) {
+            int i = hash(s, start, end) & mask;
+            while (keys[i] != null) {
+                if (equalsIgnoreCase(keys[i], s, start, end)) return i;
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        private static int hash(CharSequence s, int start, int end) {
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + Character.toUpperCase(s.charAt(i));
+            }
+            return h ^ (h >>> 16);
+        }
+
+        private static boolean equalsIgnoreCase(String key, CharSequence s, int start, int end) {
+            if (key.length() != end - start) return false;
+            for (int i = 0; i < key.length(); i++) {
+                if (key.charAt(i) != Character.toUpperCase(s.charAt(start + i))) return false;
+            }
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.stirante.asem.syntax;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Cache of styled tokens of single lines keyed by line content, so highlighting lexes only lines, which changed since
+ * previous pass. Lexer state doesn't cross line breaks, so tokens of a line depend only on its text and identical lines
+ * share one entry. Lines, which weren't used during the last complete pass over the document (deleted or edited ones),
+ * are removed by {@link #evict()}.
+ */
+class LineTokenCache {
+
+    private final Lexer lexer = new Lexer();
+    //entries with the same hash are chained
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private int generation;
+
+    //tokens of the line between from and to (excluding line break)
+    synchronized Entry get(String str, int from, int to) {
+        int hash = hash(str, from, to);
+        Entry first = entries.get(hash);
+        for (Entry e = first; e != null; e = e.next) {
+            if (e.text.length() == to - from && str.regionMatches(from, e.text, 0, to - from)) {
+                e.generation = generation;
+                return e;
+            }
+        }
+        Entry e = lex(str.substring(from, to));
+        e.next = first;
+        entries.put(hash, e);
+        return e;
+    }
+
+    private Entry lex(String line) {
+        int count = 0;
+        int[] bounds = new int[16];
+        String[] styles = new String[8];
+        lexer.reset(line);
+        while (lexer.next()) {
+            String styleClass = SyntaxHighlighter.getStyleClass(lexer);
+            if (styleClass == null) continue;
+            if (count == styles.length) {
+                bounds = Arrays.copyOf(bounds, count * 4);
+                styles = Arrays.copyOf(styles, count * 2);
+            }
+            bounds[count * 2] = lexer.getStart();
+            bounds[count * 2 + 1] = lexer.getEnd();
+            styles[count++] = styleClass;
+        }
+        return new Entry(line, bounds, styles, count, generation);
+    }
+
+    //removes entries not used since previous eviction
+    synchronized void evict() {
+        Iterator<Map.Entry<Integer, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Entry> mapEntry = it.next();
+            Entry head = null;
+            Entry tail = null;
+            for (Entry e = mapEntry.getValue(); e != null; e = e.next) {
+                if (e.generation != generation) continue;
+                if (head == null) head = e;
+                else tail.next = e;
+                tail = e;
+            }
+            if (head == null) {
+                it.remove();
+            } else {
+                tail.next = null;
+                mapEntry.setValue(head);
+            }
+        }
+        generation++;
+    }
+
+    private static int hash(String s, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + s.charAt(i);
+        }
+        return h;
+    }
+
+    static class Entry {
+        private final String text;
+        //start and end of each token relative to line start
+        private final int[] bounds;
+        private final String[] styles;
+        private final int count;
+        private int generation;
+        private Entry next;
+
+        private Entry(String text, int[] bounds, String[] styles, int count, int generation) {
+            this.text = text;
+            this.bounds = bounds;
+            this.styles = styles;
+            this.count = count;
+            this.generation = generation;
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        int getStart(int token) {
+            return bounds[token * 2];
+        }
+
+        int getEnd(int token) {
+            return bounds[token * 2 + 1];
+        }
+
+        String getStyle(int token) {
+            return styles[token];
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.stirante.asem.syntax;
+
+/**
+ * Parser of numeric literals with 8051 assembler radix suffixes: B (binary), O or Q (octal), D or none (decimal) and H
+ * (hexadecimal). Literal has to start with a digit, so hexadecimal values starting with a letter need leading zero
+ * (0FFh). It doesn't create any objects, invalid literals are reported with {@link #INVALID}.
+ */
+public class NumberParser {
+    public static final int INVALID = -1;
+
+    public static int parse(CharSequence s) {
+        return parse(s, 0, s.length());
+    }
+
+    public static int parse(CharSequence s, int start, int end) {
+        if (end - start < 1 || !isDigit(s.charAt(start))) return INVALID;
+        int radix;
+        //suffix decides radix, so 0BDh is hexadecimal even though it contains B and D
+        switch (s.charAt(end - 1)) {
+            case 'h':
+            case 'H':
+                radix = 16;
+                end--;
+                break;
+            case 'b':
+            case 'B':
+                radix = 2;
+                end--;
+                break;
+            case 'o':
+            case 'O':
+            case 'q':
+            case 'Q':
+                radix = 8;
+                end--;
+                break;
+            case 'd':
+            case 'D':
+                radix = 10;
+                end--;
+                break;
+            default:
+                radix = 10;
+                break;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = digit(s.charAt(i));
+            if (digit >= radix) return INVALID;
+            if (value > (Integer.MAX_VALUE - digit) / radix) return INVALID;
+            value = value * radix + digit;
+        }
+        return value;
+    }
+
+    //value of hexadecimal digit or 16, if it's not a digit
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        return 16;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+}
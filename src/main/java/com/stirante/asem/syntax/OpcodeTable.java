@@ -0,0 +1,143 @@
+package com.stirante.asem.syntax;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.stirante.asem.syntax.ArgumentVerifier.Type.*;
+
+/**
+ * All operand forms of 8051 instruction set with their length in bytes and machine cycles.
+ */
+public class OpcodeTable {
+
+    private static final Map<String, OperandForm[]> FORMS = new HashMap<>();
+
+    static {
+        Map<String, List<OperandForm>> m = new LinkedHashMap<>();
+        //arithmetic
+        for (String s : new String[]{"ADD", "ADDC", "SUBB"}) {
+            add(m, s, 1, 1, A, REGISTER);
+            add(m, s, 2, 1, A, IRAM_ADDR);
+            add(m, s, 1, 1, A, INDIRECT);
+            add(m, s, 2, 1, A, DATA);
+        }
+        for (String s : new String[]{"INC", "DEC"}) {
+            add(m, s, 1, 1, A);
+            add(m, s, 1, 1, REGISTER);
+            add(m, s, 2, 1, IRAM_ADDR);
+            add(m, s, 1, 1, INDIRECT);
+        }
+        add(m, "INC", 1, 2, DPTR);
+        add(m, "MUL", 1, 4, AB);
+        add(m, "DIV", 1, 4, AB);
+        add(m, "DA", 1, 1, A);
+        //logic
+        for (String s : new String[]{"ANL", "ORL", "XRL"}) {
+            add(m, s, 1, 1, A, REGISTER);
+            add(m, s, 2, 1, A, IRAM_ADDR);
+            add(m, s, 1, 1, A, INDIRECT);
+            add(m, s, 2, 1, A, DATA);
+            add(m, s, 2, 1, IRAM_ADDR, A);
+            add(m, s, 3, 2, IRAM_ADDR, DATA);
+        }
+        for (String s : new String[]{"ANL", "ORL"}) {
+            add(m, s, 2, 2, C, BIT_ADDR);
+            add(m, s, 2, 2, C, NOT_BIT_ADDR);
+        }
+        for (String s : new String[]{"CLR", "CPL"}) {
+            add(m, s, 1, 1, A);
+        }
+        for (String s : new String[]{"CLR", "CPL", "SETB"}) {
+            add(m, s, 1, 1, C);
+            add(m, s, 2, 1, BIT_ADDR);
+        }
+        for (String s : new String[]{"RL", "RLC", "RR", "RRC", "SWAP"}) {
+            add(m, s, 1, 1, A);
+        }
+        //data transfer
+        add(m, "MOV", 1, 1, A, REGISTER);
+        add(m, "MOV", 2, 1, A, IRAM_ADDR);
+        add(m, "MOV", 1, 1, A, INDIRECT);
+        add(m, "MOV", 2, 1, A, DATA);
+        add(m, "MOV", 1, 1, REGISTER, A);
+        add(m, "MOV", 2, 2, REGISTER, IRAM_ADDR);
+        add(m, "MOV", 2, 1, REGISTER, DATA);
+        add(m, "MOV", 2, 1, IRAM_ADDR, A);
+        add(m, "MOV", 2, 2, IRAM_ADDR, REGISTER);
+        add(m, "MOV", 3, 2, IRAM_ADDR, IRAM_ADDR);
+        add(m, "MOV", 2, 2, IRAM_ADDR, INDIRECT);
+        add(m, "MOV", 3, 2, IRAM_ADDR, DATA);
+        add(m, "MOV", 1, 1, INDIRECT, A);
+        add(m, "MOV", 2, 2, INDIRECT, IRAM_ADDR);
+        add(m, "MOV", 2, 1, INDIRECT, DATA);
+        add(m, "MOV", 2, 1, C, BIT_ADDR);
+        add(m, "MOV", 2, 2, BIT_ADDR, C);
+        add(m, "MOV", 3, 2, DPTR, DATA_16);
+        add(m, "MOVC", 1, 2, A, AT_A_DPTR);
+        add(m, "MOVC", 1, 2, A, AT_A_PC);
+        add(m, "MOVX", 1, 2, A, INDIRECT);
+        add(m, "MOVX", 1, 2, A, AT_DPTR);
+        add(m, "MOVX", 1, 2, INDIRECT, A);
+        add(m, "MOVX", 1, 2, AT_DPTR, A);
+        add(m, "PUSH", 2, 2, IRAM_ADDR);
+        add(m, "POP", 2, 2, IRAM_ADDR);
+        add(m, "XCH", 1, 1, A, REGISTER);
+        add(m, "XCH", 2, 1, A, IRAM_ADDR);
+        add(m, "XCH", 1, 1, A, INDIRECT);
+        add(m, "XCHD", 1, 1, A, INDIRECT);
+        //program branching
+        add(m, "ACALL", 2, 2, CODE_ADDR);
+        add(m, "LCALL", 3, 2, CODE_ADDR);
+        add(m, "RET", 1, 2);
+        add(m, "RETI", 1, 2);
+        add(m, "AJMP", 2, 2, CODE_ADDR);
+        add(m, "LJMP", 3, 2, CODE_ADDR);
+        add(m, "SJMP", 2, 2, CODE_ADDR);
+        add(m, "JMP", 1, 2, AT_A_DPTR);
+        //generic jump, assembler picks the shortest one, so it's the longest possible form
+        add(m, "JMP", 3, 2, CODE_ADDR);
+        for (String s : new String[]{"JZ", "JNZ", "JC", "JNC"}) {
+            add(m, s, 2, 2, CODE_ADDR);
+        }
+        for (String s : new String[]{"JB", "JNB", "JBC"}) {
+            add(m, s, 3, 2, BIT_ADDR, CODE_ADDR);
+        }
+        add(m, "CJNE", 3, 2, A, IRAM_ADDR, CODE_ADDR);
+        add(m, "CJNE", 3, 2, A, DATA, CODE_ADDR);
+        add(m, "CJNE", 3, 2, REGISTER, DATA, CODE_ADDR);
+        add(m, "CJNE", 3, 2, INDIRECT, DATA, CODE_ADDR);
+        add(m, "DJNZ", 2, 2, REGISTER, CODE_ADDR);
+        add(m, "DJNZ", 3, 2, IRAM_ADDR, CODE_ADDR);
+        add(m, "NOP", 1, 1);
+
+        for (Map.Entry<String, List<OperandForm>> entry : m.entrySet()) {
+            FORMS.put(entry.getKey(), entry.getValue().toArray(new OperandForm[0]));
+        }
+    }
+
+    private static void add(Map<String, List<OperandForm>> map, String mnemonic, int bytes, int cycles, ArgumentVerifier.Type... operands) {
+        map.computeIfAbsent(mnemonic, k -> new ArrayList<>()).add(new OperandForm(mnemonic, bytes, cycles, operands));
+    }
+
+    //all forms of the upper case mnemonic or null, if it's not an instruction
+    static OperandForm[] get(String mnemonic) {
+        return FORMS.get(mnemonic);
+    }
+
+    public static List<OperandForm> getForms(String mnemonic) {
+        OperandForm[] forms = FORMS.get(mnemonic);
+        if (forms == null) return Collections.emptyList();
+        return Collections.unmodifiableList(Arrays.asList(forms));
+    }
+
+    public static Set<String> getMnemonics() {
+        return Collections.unmodifiableSet(FORMS.keySet());
+    }
+
+}
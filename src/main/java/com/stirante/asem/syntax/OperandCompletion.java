@@ -0,0 +1,181 @@
+package com.stirante.asem.syntax;
+
+import com.stirante.asem.Constants;
+
+import java.util.*;
+
+/**
+ * Completion of the instruction operand at the end of the line. Types of the operand allowed by {@link OpcodeTable}
+ * after already typed operands decide, which registers, SFRs and symbols are suggested, so after JMP there are only
+ * code labels and after SETB only bits.
+ */
+public class OperandCompletion {
+
+    //byte wide SFRs and register banks addressed directly, other aliases are registers and bits
+    private static final Set<String> BYTE_SFRS = new HashSet<>(Arrays.asList(
+            "SP", "DPL", "DPH", "PCON", "TCON", "TMOD", "TL0", "TL1", "TH0", "TH1", "SCON", "SBUF", "IE", "IP", "PSW",
+            "ACC", "B", "P0", "P1", "P2", "P3", "AR0", "AR1", "AR2", "AR3", "AR4", "AR5", "AR6", "AR7"));
+    private static final CompletionIndex BYTE_ALIASES;
+    private static final CompletionIndex BIT_ALIASES;
+    private static final Map<ArgumentVerifier.Type, CompletionIndex> REGISTERS = new EnumMap<>(ArgumentVerifier.Type.class);
+
+    static {
+        List<String> bytes = new ArrayList<>();
+        List<String> bits = new ArrayList<>();
+        for (String alias : Constants.ALIAS_ARRAY) {
+            if (BYTE_SFRS.contains(alias)) {
+                bytes.add(alias);
+            } else if (!ArgumentVerifier.isRegister(alias)) {
+                bits.add(alias);
+            }
+        }
+        BYTE_ALIASES = new CompletionIndex(bytes.toArray(new String[0]), CompletionIndex.Kind.ALIAS);
+        BIT_ALIASES = new CompletionIndex(bits.toArray(new String[0]), CompletionIndex.Kind.ALIAS);
+        register(ArgumentVerifier.Type.A, "A");
+        register(ArgumentVerifier.Type.AB, "AB");
+        register(ArgumentVerifier.Type.C, "C");
+        register(ArgumentVerifier.Type.DPTR, "DPTR");
+        register(ArgumentVerifier.Type.REGISTER, "R0", "R1", "R2", "R3", "R4", "R5", "R6", "R7");
+        register(ArgumentVerifier.Type.INDIRECT, "R0", "R1");
+        register(ArgumentVerifier.Type.AT_DPTR, "DPTR");
+        register(ArgumentVerifier.Type.AT_A_DPTR, "A+DPTR");
+        register(ArgumentVerifier.Type.AT_A_PC, "A+PC");
+    }
+
+    private final String mnemonic;
+    private final List<String> previous;
+    private final String operand;
+
+    private OperandCompletion(String mnemonic, List<String> previous, String operand) {
+        this.mnemonic = mnemonic;
+        this.previous = previous;
+        this.operand = operand;
+    }
+
+    private static void register(ArgumentVerifier.Type type, String... names) {
+        REGISTERS.put(type, new CompletionIndex(names, CompletionIndex.Kind.REGISTER));
+    }
+
+    //operand typed at the end of line, which ends at caret; null if it isn't an operand of known instruction
+    public static OperandCompletion at(String line) {
+        if (line.indexOf(';') != -1) return null;
+        int i = skipWhitespace(line, 0);
+        int wordEnd = skipWord(line, i);
+        //label before the instruction
+        if (wordEnd < line.length() && line.charAt(wordEnd) == ':') {
+            i = skipWhitespace(line, wordEnd + 1);
+            wordEnd = skipWord(line, i);
+        }
+        if (wordEnd == i || wordEnd == line.length() || !Character.isWhitespace(line.charAt(wordEnd))) return null;
+        String mnemonic = line.substring(i, wordEnd).toUpperCase(Locale.ROOT);
+        if (OpcodeTable.get(mnemonic) == null) return null;
+        String[] split = line.substring(wordEnd).split(",", -1);
+        List<String> previous = new ArrayList<>(split.length - 1);
+        for (int j = 0; j < split.length - 1; j++) {
+            previous.add(split[j].trim());
+        }
+        String last = split[split.length - 1];
+        return new OperandCompletion(mnemonic, previous, last.substring(skipWhitespace(last, 0)));
+    }
+
+    private static int skipWhitespace(String line, int i) {
+        while (i < line.length() && Character.isWhitespace(line.charAt(i))) i++;
+        return i;
+    }
+
+    private static int skipWord(String line, int i) {
+        while (i < line.length() && (Character.isLetterOrDigit(line.charAt(i)) || line.charAt(i) == '_')) i++;
+        return i;
+    }
+
+    //already typed part of the operand, which is replaced by suggestion
+    public String getOperand() {
+        return operand;
+    }
+
+    //whether both completions are for the same operand of the same instruction
+    public boolean isSameOperand(OperandCompletion other) {
+        return other != null && mnemonic.equals(other.mnemonic) && previous.equals(other.previous);
+    }
+
+    //types allowed for this operand by instruction forms matching the previous operands
+    Set<ArgumentVerifier.Type> getAllowedTypes(SymbolIndex symbols) {
+        Set<ArgumentVerifier.Type> types = EnumSet.noneOf(ArgumentVerifier.Type.class);
+        int index = previous.size();
+        for (OperandForm form : OpcodeTable.get(mnemonic)) {
+            List<ArgumentVerifier.Type> operands = form.getOperands();
+            if (operands.size() <= index) continue;
+            boolean matches = true;
+            for (int i = 0; i < index && matches; i++) {
+                matches = operands.get(i).matches(previous.get(i), symbols) != ArgumentVerifier.MatchType.NOT_MATCH;
+            }
+            if (matches) types.add(operands.get(index));
+        }
+        return types;
+    }
+
+    //ranked suggestions of all allowed types
+    public List<CompletionIndex.Suggestion> find(SymbolIndex symbols) {
+        String typedLead = getLead(operand);
+        String word = operand.substring(typedLead.length());
+        List<CompletionIndex.Suggestion> out = new ArrayList<>();
+        for (ArgumentVerifier.Type type : getAllowedTypes(symbols)) {
+            String lead = getLead(type);
+            if (!lead.startsWith(typedLead)) continue;
+            for (CompletionIndex index : getCandidates(type, symbols)) {
+                index.find(word, lead, out);
+            }
+        }
+        CompletionIndex.sort(out);
+        return out;
+    }
+
+    //suggestions, which still match operand typed after the one they were found for
+    public List<CompletionIndex.Suggestion> narrow(List<CompletionIndex.Suggestion> suggestions) {
+        String typedLead = getLead(operand);
+        List<CompletionIndex.Suggestion> result = new ArrayList<>(suggestions.size());
+        for (CompletionIndex.Suggestion suggestion : suggestions) {
+            if (suggestion.getLead().startsWith(typedLead)) result.add(suggestion);
+        }
+        return CompletionIndex.narrow(result, operand.substring(typedLead.length()));
+    }
+
+    private static String getLead(String operand) {
+        return !operand.isEmpty() && "#@/".indexOf(operand.charAt(0)) != -1 ? operand.substring(0, 1) : "";
+    }
+
+    private static String getLead(ArgumentVerifier.Type type) {
+        switch (type) {
+            case DATA:
+            case DATA_16:
+                return "#";
+            case INDIRECT:
+            case AT_DPTR:
+            case AT_A_DPTR:
+            case AT_A_PC:
+                return "@";
+            case NOT_BIT_ADDR:
+                return "/";
+            default:
+                return "";
+        }
+    }
+
+    //precomputed candidate sets for the operand type, symbols are the ones accepted by ArgumentVerifier.Type
+    private static List<CompletionIndex> getCandidates(ArgumentVerifier.Type type, SymbolIndex symbols) {
+        switch (type) {
+            case DATA:
+            case DATA_16:
+            case CODE_ADDR:
+                return Collections.singletonList(symbols.getOperandCompletions(type));
+            case IRAM_ADDR:
+                return Arrays.asList(BYTE_ALIASES, symbols.getOperandCompletions(type));
+            case BIT_ADDR:
+            case NOT_BIT_ADDR:
+                return Arrays.asList(BIT_ALIASES, symbols.getOperandCompletions(type));
+            default:
+                return Collections.singletonList(REGISTERS.get(type));
+        }
+    }
+
+}
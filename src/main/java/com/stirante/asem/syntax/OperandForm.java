@@ -0,0 +1,51 @@
+package com.stirante.asem.syntax;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Single encoding of an instruction, described by types of its operands, encoded length in bytes and number of machine cycles.
+ */
+public class OperandForm {
+
+    private final String mnemonic;
+    private final ArgumentVerifier.Type[] operands;
+    private final int bytes;
+    private final int cycles;
+
+    OperandForm(String mnemonic, int bytes, int cycles, ArgumentVerifier.Type... operands) {
+        this.mnemonic = mnemonic;
+        this.operands = operands;
+        this.bytes = bytes;
+        this.cycles = cycles;
+    }
+
+    ArgumentVerifier.MatchType matches(String[] args, SymbolIndex symbols) {
+        if (args.length != operands.length) return ArgumentVerifier.MatchType.NOT_MATCH;
+        ArgumentVerifier.MatchType result = ArgumentVerifier.MatchType.MATCH;
+        for (int i = 0; i < operands.length; i++) {
+            ArgumentVerifier.MatchType type = operands[i].matches(args[i], symbols);
+            if (type == ArgumentVerifier.MatchType.NOT_MATCH) return type;
+            if (type == ArgumentVerifier.MatchType.UNKNOWN_SYMBOL) result = type;
+        }
+        return result;
+    }
+
+    public String getMnemonic() {
+        return mnemonic;
+    }
+
+    public List<ArgumentVerifier.Type> getOperands() {
+        return Collections.unmodifiableList(Arrays.asList(operands));
+    }
+
+    public int getBytes() {
+        return bytes;
+    }
+
+    public int getCycles() {
+        return cycles;
+    }
+
+}
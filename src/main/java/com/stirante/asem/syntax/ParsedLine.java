@@ -0,0 +1,100 @@
+package com.stirante.asem.syntax;
+
+/**
+ * Result of parsing single source line. Offsets are relative to the start of the line, so parsed line can be reused
+ * when lines before it are changed.
+ */
+class ParsedLine {
+    final String text;
+
+    //field or routine definition
+    boolean field;
+    boolean routine;
+    int nameStart;
+    int nameEnd;
+    String name;
+    String fieldType;
+    String value;
+    String comment = "";
+
+    //instruction
+    boolean operation;
+    int operationStart;
+    int operationEnd;
+    String mnemonic;
+    String args;
+    //cached result of argument verification, null if it has to be checked again
+    ArgumentVerifier.MatchType status;
+
+    ParsedLine(String text, Lexer lexer) {
+        this.text = text;
+        lexer.reset(text);
+        if (!lexer.next()) return;
+        if (lexer.getType() == Lexer.TokenType.LABEL) {
+            nameStart = lexer.getStart();
+            nameEnd = lexer.getEnd();
+            name = text.substring(nameStart, nameEnd);
+            if (nameEnd < text.length() && text.charAt(nameEnd) == ':') {
+                routine = true;
+                if (!lexer.next()) return;
+            } else {
+                //name is followed by field type (EQU, DATA, BIT...), because otherwise it wouldn't be a label
+                lexer.next();
+                fieldType = lexer.getKeyword();
+                int valueStart = -1;
+                int valueEnd = -1;
+                while (lexer.next() && lexer.getType() != Lexer.TokenType.COMMENT) {
+                    if (valueStart == -1) valueStart = lexer.getStart();
+                    valueEnd = lexer.getEnd();
+                }
+                if (valueStart == -1) return;
+                field = true;
+                value = text.substring(valueStart, valueEnd);
+                if (lexer.getType() == Lexer.TokenType.COMMENT) comment = comment(lexer.getStart());
+                return;
+            }
+        }
+        if (lexer.getType() == Lexer.TokenType.MNEMONIC) {
+            int start = lexer.getStart();
+            String m = lexer.getKeyword();
+            int argsStart = -1;
+            int argsEnd = -1;
+            while (lexer.next() && lexer.getType() != Lexer.TokenType.COMMENT) {
+                if (argsStart == -1) argsStart = lexer.getStart();
+                argsEnd = lexer.getEnd();
+            }
+            args = argsStart == -1 ? "" : arguments(argsStart, argsEnd);
+            if (args != null) {
+                operation = true;
+                operationStart = start;
+                operationEnd = argsStart == -1 ? start + m.length() : argsEnd;
+                mnemonic = m;
+            }
+        }
+        while (lexer.getType() != null && lexer.getType() != Lexer.TokenType.COMMENT) lexer.next();
+        if (routine && lexer.getType() == Lexer.TokenType.COMMENT) comment = comment(lexer.getStart());
+    }
+
+    //arguments without whitespace or null, if they contain anything more than simple expressions
+    private String arguments(int start, int end) {
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) continue;
+            if (!Character.isLetterOrDigit(c) && "@_,#/+*.-".indexOf(c) == -1) return null;
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private String comment(int start) {
+        int i = start;
+        while (i < text.length() && text.charAt(i) == ';') i++;
+        return text.substring(i);
+    }
+
+    int length() {
+        return text.length();
+    }
+
+}
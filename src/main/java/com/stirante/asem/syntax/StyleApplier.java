@@ -0,0 +1,101 @@
+package com.stirante.asem.syntax;
+
+import com.stirante.asem.utils.Metrics;
+import javafx.animation.AnimationTimer;
+import org.fxmisc.richtext.CodeArea;
+import org.fxmisc.richtext.model.StyleSpans;
+import org.fxmisc.richtext.model.TwoDimensional;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.function.LongSupplier;
+
+/**
+ * Applies style spans to the editor in small batches of paragraphs, spending at most {@link #BUDGET} nanoseconds per
+ * frame, so big files don't block FX application thread. Spans are applied in the order they were added and all of
+ * them are dropped once the text version changes.
+ */
+class StyleApplier extends AnimationTimer {
+    private static final long BUDGET = 4_000_000L;
+    private static final int BATCH_LINES = 50;
+
+    private final CodeArea area;
+    private final LongSupplier currentVersion;
+    private final Deque<Pending> queue = new ArrayDeque<>();
+    private long version;
+    private boolean running;
+
+    StyleApplier(CodeArea area, LongSupplier currentVersion) {
+        this.area = area;
+        this.currentVersion = currentVersion;
+    }
+
+    //spans for text starting at from, computed for given version of the text
+    void add(long version, int from, StyleSpans<Collection<String>> spans) {
+        if (version != this.version) {
+            queue.clear();
+            this.version = version;
+        }
+        queue.add(new Pending(from, spans));
+        if (!running) {
+            running = true;
+            start();
+        }
+        //the first spans, usually the visible part, are applied right away
+        if (queue.size() == 1) handle(System.nanoTime());
+    }
+
+    void clear() {
+        queue.clear();
+        if (running) {
+            running = false;
+            stop();
+        }
+    }
+
+    @Override
+    public void handle(long now) {
+        if (version != currentVersion.getAsLong()) {
+            clear();
+            return;
+        }
+        long start = System.nanoTime();
+        //at least one batch per frame, so big batch can't stop the progress
+        do {
+            Pending pending = queue.peek();
+            if (pending == null) break;
+            if (applyBatch(pending)) queue.poll();
+        } while (System.nanoTime() - start < BUDGET);
+        if (queue.isEmpty()) clear();
+    }
+
+    //applies next batch of paragraphs, returns true if it was the last one
+    private boolean applyBatch(Pending pending) {
+        long time = System.nanoTime();
+        int length = pending.spans.length();
+        int position = pending.from + pending.offset;
+        int paragraph = area.offsetToPosition(position, TwoDimensional.Bias.Forward).getMajor();
+        int end = length;
+        if (paragraph + BATCH_LINES < area.getParagraphs().size()) {
+            end = Math.min(length, area.getAbsolutePosition(paragraph + BATCH_LINES, 0) - pending.from);
+        }
+        area.setStyleSpans(position, pending.offset == 0 && end == length ? pending.spans : pending.spans.subView(pending.offset, end));
+        pending.offset = end;
+        Metrics.get(Metrics.STYLE_APPLY).recordSince(time);
+        return end == length;
+    }
+
+    private static class Pending {
+        private final int from;
+        private final StyleSpans<Collection<String>> spans;
+        //length of already applied part
+        private int offset;
+
+        private Pending(int from, StyleSpans<Collection<String>> spans) {
+            this.from = from;
+            this.spans = spans;
+        }
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.stirante.asem.syntax;
+
+import com.stirante.asem.syntax.code.CodeElement;
+import com.stirante.asem.syntax.code.FieldElement;
+import com.stirante.asem.syntax.code.RoutineElement;
+
+import java.util.*;
+
+/**
+ * Case insensitive index of fields and routines. When symbol is defined more than once, the first definition is used.
+ * Sorted names and completions depend only on names and types of symbols, not on their positions, so they can be
+ * taken from the previous index, when no line defining a symbol was changed.
+ */
+public class SymbolIndex {
+
+    private final Map<String, FieldElement> fields = new HashMap<>();
+    private final Map<String, RoutineElement> routines = new HashMap<>();
+    private final Map<Integer, CodeElement> lines = new HashMap<>();
+    //all symbols sorted by folded name for prefix queries
+    private final CodeElement[] sortedElements;
+    private final Names names;
+
+    public SymbolIndex(List<FieldElement> fieldList, List<RoutineElement> routineList) {
+        this(fieldList, routineList, null);
+    }
+
+    //previous index has to have the same symbols in the same order, only their positions can differ
+    SymbolIndex(List<FieldElement> fieldList, List<RoutineElement> routineList, SymbolIndex previous) {
+        List<CodeElement> all = new ArrayList<>(fieldList.size() + routineList.size());
+        for (FieldElement field : fieldList) {
+            fields.putIfAbsent(fold(field.getName()), field);
+            lines.putIfAbsent(field.getDefinitionLine(), field);
+            all.add(field);
+        }
+        for (RoutineElement routine : routineList) {
+            routines.putIfAbsent(fold(routine.getName()), routine);
+            lines.putIfAbsent(routine.getDefinitionLine(), routine);
+            all.add(routine);
+        }
+        names = previous != null && previous.sortedElements.length == all.size() ? previous.names : new Names(all);
+        sortedElements = new CodeElement[all.size()];
+        for (int i = 0; i < sortedElements.length; i++) {
+            sortedElements[i] = all.get(names.order[i]);
+        }
+    }
+
+    private static String fold(String name) {
+        return name.toUpperCase(Locale.ROOT);
+    }
+
+    private static String foldedName(CodeElement element) {
+        return fold(element instanceof FieldElement ? ((FieldElement) element).getName() : ((RoutineElement) element).getName());
+    }
+
+    public FieldElement getField(String name) {
+        return fields.get(fold(name));
+    }
+
+    public RoutineElement getRoutine(String name) {
+        return routines.get(fold(name));
+    }
+
+    //field or routine with this name, fields take precedence
+    public CodeElement get(String name) {
+        String folded = fold(name);
+        CodeElement element = fields.get(folded);
+        return element != null ? element : routines.get(folded);
+    }
+
+    public boolean contains(String name) {
+        return get(name) != null;
+    }
+
+    public CodeElement getAtLine(int line) {
+        return lines.get(line);
+    }
+
+    public CompletionIndex getCompletions() {
+        return names.completions;
+    }
+
+    //fields and routines, which are values of given operand type, like bits for BIT_ADDR
+    public CompletionIndex getOperandCompletions(ArgumentVerifier.Type type) {
+        return names.operandCompletions.getOrDefault(type, CompletionIndex.EMPTY);
+    }
+
+    //all fields and routines, which names start with prefix, sorted by name
+    public List<CodeElement> getByPrefix(String prefix) {
+        String folded = fold(prefix);
+        String[] sortedNames = names.sortedNames;
+        int from = Arrays.binarySearch(sortedNames, folded);
+        if (from < 0) {
+            from = -from - 1;
+        } else {
+            while (from > 0 && sortedNames[from - 1].equals(folded)) from--;
+        }
+        int to = from;
+        while (to < sortedNames.length && sortedNames[to].startsWith(folded)) to++;
+        return Collections.unmodifiableList(Arrays.asList(sortedElements).subList(from, to));
+    }
+
+    //everything, which depends only on names and types of symbols, built on analysis thread and not when user waits
+    //for completion
+    private static class Names {
+        //index in the list of all symbols for every position in sorted order
+        private final int[] order;
+        private final String[] sortedNames;
+        private final CompletionIndex completions;
+        //completions of symbols accepted by operand types, for operands accepting only some of them
+        private final Map<ArgumentVerifier.Type, CompletionIndex> operandCompletions = new EnumMap<>(ArgumentVerifier.Type.class);
+
+        private Names(List<CodeElement> all) {
+            Integer[] sorted = new Integer[all.size()];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = i;
+            }
+            Arrays.sort(sorted, Comparator.comparing(i -> foldedName(all.get(i))));
+            order = new int[sorted.length];
+            sortedNames = new String[sorted.length];
+            String[] names = new String[sorted.length];
+            CompletionIndex.Kind[] kinds = new CompletionIndex.Kind[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                order[i] = sorted[i];
+                CodeElement element = all.get(order[i]);
+                boolean field = element instanceof FieldElement;
+                names[i] = field ? ((FieldElement) element).getName() : ((RoutineElement) element).getName();
+                sortedNames[i] = fold(names[i]);
+                kinds[i] = field ? CompletionIndex.Kind.FIELD : CompletionIndex.Kind.ROUTINE;
+            }
+            completions = new CompletionIndex(names, sortedNames, kinds);
+            //partitions keep the order, so they don't have to be sorted again
+            for (ArgumentVerifier.Type type : ArgumentVerifier.Type.values()) {
+                List<Integer> indexes = new ArrayList<>();
+                for (int i = 0; i < sorted.length; i++) {
+                    if (type.accepts(all.get(order[i]))) indexes.add(i);
+                }
+                if (!indexes.isEmpty()) operandCompletions.put(type, subIndex(names, kinds, indexes));
+            }
+        }
+
+        private CompletionIndex subIndex(String[] names, CompletionIndex.Kind[] kinds, List<Integer> indexes) {
+            String[] subNames = new String[indexes.size()];
+            String[] subFolded = new String[indexes.size()];
+            CompletionIndex.Kind[] subKinds = new CompletionIndex.Kind[indexes.size()];
+            for (int i = 0; i < subNames.length; i++) {
+                int index = indexes.get(i);
+                subNames[i] = names[index];
+                subFolded[i] = sortedNames[index];
+                subKinds[i] = kinds[index];
+            }
+            return new CompletionIndex(subNames, subFolded, subKinds);
+        }
+    }
+
+}
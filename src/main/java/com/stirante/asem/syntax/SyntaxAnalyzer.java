@@ -1,24 +1,20 @@
 package com.stirante.asem.syntax;
 
 import com.stirante.asem.syntax.code.*;
+import com.stirante.asem.ui.tooltip.TooltipContent;
+import com.stirante.asem.utils.Metrics;
+import com.stirante.asem.utils.RangeIndex;
+import com.stirante.asem.utils.TextRange;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.*;
 
 /**
  * Created by stirante
  */
 public class SyntaxAnalyzer {
-    private static final Pattern FIELD = Pattern.compile("(\\w+)\\s+(\\w+)\\s+([\\w.-]+)\\s*;*(.*)");//#1 name, #2 type, #3 address, #4 comment
-    private static final Pattern ROUTINE = Pattern.compile("\\s*(\\w+):\\s*;*(.*)");//#1 name, #2 comment
-    private static final Pattern OPERATION = Pattern.compile("\\s*([a-zA-Z]+)\\s+([@a-zA-Z0-9_,# /+*.-]*[a-zA-Z0-9._])\\s*;*.*");//#1 mnemonic, #2 args
     private static final HashMap<Integer, String> RESERVED_ADDRESSES = new HashMap<>();
 
     static {
@@ -29,8 +25,14 @@ public class SyntaxAnalyzer {
                 if (line.startsWith("#")) continue;
                 String[] split = line.split(",");
                 String name = split[0];
-                Integer address = Integer.parseInt(split[1].replaceAll("h", ""), 16);
-                RESERVED_ADDRESSES.put(address, name);
+                //addresses are hexadecimal with trailing h, but without leading zero, like A0h, so they aren't literals
+                String value = split[1].trim();
+                if (value.endsWith("h")) value = value.substring(0, value.length() - 1);
+                try {
+                    RESERVED_ADDRESSES.put(Integer.parseInt(value, 16), name);
+                } catch (NumberFormatException e) {
+                    e.printStackTrace();
+                }
             }
             reader.close();
         } catch (IOException e) {
@@ -41,90 +43,155 @@ public class SyntaxAnalyzer {
 
     public static AnalysisResult analyze(String source) {
         String[] lines = source.split("\n");
+        List<ParsedLine> parsed = new ArrayList<>(lines.length);
+        Lexer lexer = new Lexer();
+        for (String line : lines) {
+            parsed.add(new ParsedLine(line, lexer));
+        }
+        return analyze(parsed, null);
+    }
+
+    //builds result from already parsed lines, verifying only instructions without cached status; names of symbols
+    //are taken from previous index, unless it's null
+    static AnalysisResult analyze(List<ParsedLine> lines, SymbolIndex previous) {
+        long start = System.nanoTime();
         AnalysisResult result = new AnalysisResult();
         int lineOffset = 0;
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i];
-            Matcher fieldMatcher = FIELD.matcher(line);
-            if (fieldMatcher.matches()) {
-                result.fields.add(new FieldElement(lineOffset + fieldMatcher.start(1), lineOffset + fieldMatcher.end(1), i + 1, fieldMatcher.group(1), fieldMatcher.group(2).toUpperCase(), fieldMatcher.group(3), fieldMatcher.group(4)));
-                lineOffset += line.length() + 1;
-                continue;
-            }
-            Matcher routineMatcher = ROUTINE.matcher(line);
-            if (routineMatcher.matches()) {
-                result.routines.add(new RoutineElement(lineOffset + routineMatcher.start(1), lineOffset + routineMatcher.end(1), i + 1, routineMatcher.group(1), routineMatcher.group(2)));
+        for (int i = 0; i < lines.size(); i++) {
+            ParsedLine line = lines.get(i);
+            if (line.field) {
+                result.fields.add(new FieldElement(lineOffset + line.nameStart, lineOffset + line.nameEnd, i + 1, line.name, line.fieldType, line.value, line.comment));
+            } else if (line.routine) {
+                result.routines.add(new RoutineElement(lineOffset + line.nameStart, lineOffset + line.nameEnd, i + 1, line.name, line.comment));
             }
             lineOffset += line.length() + 1;
         }
+        result.symbols = new SymbolIndex(result.fields, result.routines, previous);
         lineOffset = 0;
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i];
-            Matcher operationMatcher = OPERATION.matcher(line);
-            if (operationMatcher.matches()) {
-                String mnemonic = operationMatcher.group(1).toUpperCase();
-                String args = operationMatcher.group(2).replaceAll(" ", "");
-                ArgumentVerifier.MatchType matchType = ArgumentVerifier.checkStatus(mnemonic, args, result.fields, result.routines);
-                if (matchType != ArgumentVerifier.MatchType.MATCH) {
-                    String desc = matchType == ArgumentVerifier.MatchType.UNKNOWN_SYMBOL ? "Unknown symbol!" : "Invalid arguments!";
-                    CodeErrorElement e = new CodeErrorElement(lineOffset + operationMatcher.start(1), lineOffset + operationMatcher.end(2), i + 1, desc);
+        for (int i = 0; i < lines.size(); i++) {
+            ParsedLine line = lines.get(i);
+            if (line.operation) {
+                if (line.status == null) {
+                    line.status = ArgumentVerifier.checkStatus(line.mnemonic, line.args, result.symbols);
+                }
+                if (line.status != ArgumentVerifier.MatchType.MATCH) {
+                    String desc = line.status == ArgumentVerifier.MatchType.UNKNOWN_SYMBOL ? "Unknown symbol!" : "Invalid arguments!";
+                    CodeErrorElement e = new CodeErrorElement(lineOffset + line.operationStart, lineOffset + line.operationEnd, i + 1, desc);
                     result.errors.add(e);
                 }
             }
             lineOffset += line.length() + 1;
         }
-        final List<CodeCollisionElement> c = new ArrayList<>();
-        for (FieldElement field : result.fields) {
-            if (field.getFieldType().equalsIgnoreCase("equ")) continue;
-            int address = parseAddress(field.getValue());
-            if (address == -1) continue;
-            boolean found = false;
-            for (CodeCollisionElement collision : c) {
-                if (collision.getAddress() == address) {
-                    collision.addCollision(field.getDefinitionStart(), field.getDefinitionEnd(), field.getDefinitionLine());
-                    found = true;
-                }
-            }
-            if (!found) {
-                CodeCollisionElement e = new CodeCollisionElement(field.getDefinitionStart(), field.getDefinitionEnd(), field.getDefinitionLine(), address);
-                c.add(e);
-            }
-            if (RESERVED_ADDRESSES.containsKey(address))
-                c.add(new ReservedAddressCollisionElement(field.getDefinitionStart(), field.getDefinitionEnd(), field.getDefinitionLine(), address, RESERVED_ADDRESSES.get(address)));
-        }
-        result.collisions.addAll(c.stream().filter(collision -> collision.getRanges().size() > 1 || collision instanceof ReservedAddressCollisionElement).collect(Collectors.toList()));
+        findCollisions(result.fields, result.collisions);
+        result.tooltips = buildTooltips(result);
+        Metrics.get(Metrics.ANALYSIS).recordSince(start);
         return result;
     }
 
-    private static int parseAddress(String s) {
-        String a = s.replace("#", "");
-        if (a.contains("b")) {
-            try {
-                return Integer.parseInt(a.replaceAll("b", ""), 2);
-            } catch (NumberFormatException e) {
-                return -1;
+    //single pass over fields, which marks used addresses in separate occupancy map for each address space
+    private static void findCollisions(List<FieldElement> fields, List<CodeCollisionElement> out) {
+        //directly addressed bytes (DATA and lower half of IDATA) and upper 128 bytes of indirectly addressed RAM
+        CodeCollisionElement[] iram = new CodeCollisionElement[256];
+        CodeCollisionElement[] upperIram = new CodeCollisionElement[128];
+        CodeCollisionElement[] bits = new CodeCollisionElement[256];
+        HashMap<Integer, CodeCollisionElement> xdata = new HashMap<>();
+        //first bit field in every byte, bit addressable bytes collide with bit fields inside them
+        FieldElement[] bitBytes = new FieldElement[256];
+        List<CodeCollisionElement> used = new ArrayList<>();
+        for (FieldElement field : fields) {
+            String type = field.getFieldType();
+            if (type == null) continue;
+            String value = field.getValue();
+            int address = NumberParser.parse(value, value.startsWith("#") ? 1 : 0, value.length());
+            if (address == NumberParser.INVALID) continue;
+            switch (type) {
+                case "DATA":
+                case "IDATA":
+                    if (address > 0xFF) break;
+                    if (address >= 0x80 && type.equals("IDATA")) {
+                        mark(upperIram, address - 0x80, address, field, used);
+                    } else {
+                        mark(iram, address, address, field, used);
+                        String name = RESERVED_ADDRESSES.get(address);
+                        if (name != null) {
+                            out.add(new ReservedAddressCollisionElement(field.getDefinitionStart(), field.getDefinitionEnd(), field.getDefinitionLine(), address, name));
+                        }
+                    }
+                    break;
+                case "BIT":
+                    if (address > 0xFF) break;
+                    mark(bits, address, address, field, used);
+                    int b = bitToByte(address);
+                    if (bitBytes[b] == null) bitBytes[b] = field;
+                    break;
+                case "XDATA":
+                    if (address > 0xFFFF) break;
+                    CodeCollisionElement e = xdata.get(address);
+                    if (e == null) {
+                        e = new CodeCollisionElement(field.getDefinitionStart(), field.getDefinitionEnd(), field.getDefinitionLine(), address);
+                        xdata.put(address, e);
+                        used.add(e);
+                    } else {
+                        e.addCollision(field.getDefinitionStart(), field.getDefinitionEnd(), field.getDefinitionLine());
+                    }
+                    break;
+                default:
+                    //EQU, SET and CODE are not memory reservations
+                    break;
             }
-        } else if (a.contains("h")) {
-            try {
-                return Integer.parseInt(a.replaceAll("h", ""), 16);
-            } catch (NumberFormatException e) {
-                return -1;
+        }
+        for (int i = 0; i < 256; i++) {
+            FieldElement bit = bitBytes[i];
+            if (bit != null && iram[i] != null) {
+                iram[i].addCollision(bit.getDefinitionStart(), bit.getDefinitionEnd(), bit.getDefinitionLine());
             }
+        }
+        for (CodeCollisionElement e : used) {
+            if (e.getRanges().size() > 1) out.add(e);
+        }
+    }
+
+    private static void mark(CodeCollisionElement[] map, int index, int address, FieldElement field, List<CodeCollisionElement> used) {
+        if (map[index] == null) {
+            map[index] = new CodeCollisionElement(field.getDefinitionStart(), field.getDefinitionEnd(), field.getDefinitionLine(), address);
+            used.add(map[index]);
         } else {
-            try {
-                return Integer.parseInt(a.replaceAll("d", ""));
-            } catch (NumberFormatException e) {
-                return -1;
+            map[index].addCollision(field.getDefinitionStart(), field.getDefinitionEnd(), field.getDefinitionLine());
+        }
+    }
+
+    //errors first, so they are shown when they overlap a collision
+    private static RangeIndex<TooltipContent> buildTooltips(AnalysisResult result) {
+        RangeIndex.Builder<TooltipContent> builder = new RangeIndex.Builder<>();
+        for (CodeErrorElement error : result.errors) {
+            builder.add(error.getDefinitionStart(), error.getDefinitionEnd(), error);
+        }
+        for (CodeCollisionElement collision : result.collisions) {
+            if (collision instanceof ReservedAddressCollisionElement) {
+                builder.add(collision.getDefinitionStart(), collision.getDefinitionEnd(), collision);
+            } else {
+                for (TextRange range : collision.getRanges()) {
+                    builder.add(range.getStart(), range.getEnd(), collision);
+                }
             }
         }
+        return builder.build();
     }
 
+    //bits 00h-7Fh are in bytes 20h-2Fh, upper bits belong to bit addressable SFRs
+    private static int bitToByte(int bit) {
+        return bit < 0x80 ? 0x20 + (bit >> 3) : bit & 0xF8;
+    }
 
     public static class AnalysisResult {
         private final List<FieldElement> fields = new ArrayList<>();
         private final List<RoutineElement> routines = new ArrayList<>();
         private final List<CodeCollisionElement> collisions = new ArrayList<>();
         private final List<CodeErrorElement> errors = new ArrayList<>();
+        private SymbolIndex symbols = new SymbolIndex(fields, routines);
+        //errors and collisions by their ranges in the text
+        private RangeIndex<TooltipContent> tooltips = new RangeIndex.Builder<TooltipContent>().build();
+        private long version;
 
         public List<FieldElement> getFields() {
             return fields;
@@ -141,6 +208,24 @@ public class SyntaxAnalyzer {
         public List<CodeErrorElement> getErrors() {
             return errors;
         }
+
+        public SymbolIndex getSymbols() {
+            return symbols;
+        }
+
+        //error or collision at the offset, null if there is none
+        public TooltipContent getTooltipAt(int offset) {
+            return tooltips.get(offset);
+        }
+
+        //version of the document this result was computed for
+        public long getVersion() {
+            return version;
+        }
+
+        void setVersion(long version) {
+            this.version = version;
+        }
     }
 
 }
@@ -1,19 +1,20 @@
 package com.stirante.asem.syntax;
 
+import com.stirante.asem.Constants;
 import com.stirante.asem.syntax.code.*;
 import com.stirante.asem.ui.CodeView;
 import com.stirante.asem.ui.Settings;
 import com.stirante.asem.utils.AsyncTask;
 import com.stirante.asem.utils.BetterSpanBuilder;
+import com.stirante.asem.utils.Metrics;
+import com.stirante.asem.utils.TaskPool;
 import com.stirante.asem.utils.TextRange;
 import org.fxmisc.richtext.CodeArea;
 import org.fxmisc.richtext.model.StyleSpans;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongConsumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -21,35 +22,23 @@ import java.util.regex.Pattern;
  * Created by stirante
  */
 public class SyntaxHighlighter {
-    private static final String[] INSTRUCTIONS = {"PUSH", "POP", "MOV", "MOVX", "MOVC", "ADD", "ADDC", "SUBB", "INC", "DEC", "CLR", "CPL", "SETB", "SJMP", "AJMP", "LJMP", "ACALL", "LCALL", "RET", "RETI", "DJNZ", "CJNE", "JZ", "JNZ", "JC", "JNC", "JB", "JBC", "JNB", "ANL", "ORL", "XRL", "RL", "RLC", "RR", "RRC", "MUL", "DIV", "SWAP", "XCH", "XCHD", "DA", "NOP"};
-    private static final String[] DIRECTIVES = {"DB", "HIGH", "LOW", "ORG", "USING", "EQU", "SET", "CALL", "JMP", "END", "DATA", "BIT"};
-    private static final String[] ALIASES = {"SP", "DPL", "DPH", "PCON", "TCON", "TMOD", "TL0", "TL1", "TH0", "TH1", "SCON", "SBUF", "PCON", "IE", "IP", "PSW", "ACC", "P0\\.0", "P0\\.1", "P0\\.2", "P0\\.3", "P0\\.4", "P0\\.5", "P0\\.6", "P0\\.7", "P0", "P1\\.0", "P1\\.1", "P1\\.2", "P1\\.3", "P1\\.4", "P1\\.5", "P1\\.6", "P1\\.7", "P1", "P2\\.0", "P2\\.1", "P2\\.2", "P2\\.3", "P2\\.4", "P2\\.5", "P2\\.6", "P2\\.7", "P2", "P3\\.0", "P3\\.1", "P3\\.2", "P3\\.3", "P3\\.4", "P3\\.5", "P3\\.6", "P3\\.7", "P3", "ACC\\.0", "ACC\\.1", "ACC\\.2", "ACC\\.3", "ACC\\.4", "ACC\\.5", "ACC\\.6", "ACC\\.7", "B\\.0", "B\\.1", "B\\.2", "B\\.3", "B\\.4", "B\\.5", "B\\.6", "B\\.7", "AR0", "AR1", "AR2", "AR3", "AR4", "AR5", "AR6", "AR7", "IT0", "IE0", "IT1", "IE1", "TR0", "TF0", "TR1", "TF1", "RI", "TI", "RB8", "TB8", "REN", "SM2", "SM1", "SM0", "EX0", "ET0", "EX1", "ET1", "ES", "EA", "PT0", "PX1", "PT1", "PS", "P", "OV", "RS0", "RS1", "F0", "AC", "CY", "A", "AB", "B", "C", "R0", "R1", "R2", "R3", "R4", "R5", "R6", "R7", "@R0", "@R1", "@DPTR", "DPTR", "@A\\+DPTR", "@A\\+PC"};
-
-    //regex
-    private static final String INSTRUCTION_PATTERN = "\\b(" + String.join("|", (CharSequence[]) INSTRUCTIONS) + ")\\b";
-    private static final String DIRECTIVES_PATTERN = "\\s(" + String.join("|", (CharSequence[]) DIRECTIVES) + ")\\b";
-    private static final String ALIASES_PATTERN = "\\b(" + String.join("|", (CharSequence[]) ALIASES) + ")\\b";
-    private static final String NUMBER_PATTERN = "\\W#?([01]+B|[0-9ABCDEF]+H|[0-9]+D?)\\b";
-    private static final String COMMENT_PATTERN = ";.*";
-    private static final String DOLLAR_PATTERN = "\\$.+";
-    private static final Pattern PATTERN = Pattern.compile(
-            "(?<COMMENT>" + COMMENT_PATTERN + ")"
-                    + "|(?<INSTRUCTION>" + INSTRUCTION_PATTERN + ")"
-                    + "|(?<DIRECTIVE>" + DIRECTIVES_PATTERN + ")"
-                    + "|(?<ALIAS>" + ALIASES_PATTERN + ")"
-                    + "|(?<NUMBER>" + NUMBER_PATTERN + ")"
-                    + "|(?<DOLLAR>" + DOLLAR_PATTERN + ")"
-    );
+    //number of lines highlighted at once outside of the viewport
+    private static final int CHUNK_LINES = 500;
     private final CodeView codeView;
     private final CodeArea text;
-    private AsyncTask<Void, Void, Object> task;
-    private AtomicBoolean pause = new AtomicBoolean(false);
+    private final LineTokenCache tokenCache = new LineTokenCache();
+    private final StyleApplier applier;
+    private AsyncTask<Void, Chunk, Void> task;
     private AtomicBoolean showClickables = new AtomicBoolean(false);
     private String highlightWord = "";
+    //matches of the last search, sorted by start
+    private volatile List<TextRange> searchMatches = Collections.emptyList();
+    private LongConsumer onVisibleHighlighted;
 
     public SyntaxHighlighter(CodeView codeView, CodeArea codeArea) {
         this.codeView = codeView;
         this.text = codeArea;
+        applier = new StyleApplier(codeArea, codeView::getVersion);
     }
 
     public String getHighlightWord() {
@@ -60,103 +49,233 @@ public class SyntaxHighlighter {
         this.highlightWord = highlightWord;
     }
 
+    //matches have to be found in the current text, they are highlighted from the next computeHighlighting
+    public void setSearchMatches(List<TextRange> searchMatches) {
+        this.searchMatches = searchMatches;
+    }
+
+    //called on FX application thread with text version, after visible part of the text was highlighted
+    public void setOnVisibleHighlighted(LongConsumer listener) {
+        onVisibleHighlighted = listener;
+    }
+
+    //has to be called on FX application thread
     public void computeHighlighting() {
+        final SyntaxAnalyzer.AnalysisResult analysis = codeView.getSyntaxAnalysis();
+        final long version = analysis.getVersion();
+        //text changed after this analysis, highlighting will be computed again when analysis of the new text is done
+        if (version != codeView.getVersion()) return;
+        cancel();
         final String str = text.getText();
-        final double estimatedScrollY = text.getEstimatedScrollY();
-        if (pause.get()) return;
-        if (task != null) task.cancel();
-        task = new AsyncTask<Void, Void, Object>() {
+        //visible lines, including line break after the last one
+        int visibleFrom = 0;
+        int visibleTo = 0;
+        int visibleCount = text.getVisibleParagraphs().size();
+        if (visibleCount > 0) {
+            int firstVisible = text.visibleParToAllParIndex(0);
+            int lastVisible = text.visibleParToAllParIndex(visibleCount - 1);
+            visibleFrom = text.getAbsolutePosition(firstVisible, 0);
+            visibleTo = Math.min(str.length(), text.getAbsolutePosition(lastVisible, text.getParagraphLength(lastVisible)) + 1);
+        }
+        final int viewportFrom = visibleFrom;
+        final int viewportTo = visibleTo;
+        final boolean experimental = Settings.getInstance().isExperimental();
+        final boolean clickables = showClickables.get();
+        final String word = highlightWord;
+        final List<TextRange> matches = searchMatches;
+        task = new AsyncTask<Void, Chunk, Void>(TaskPool.Priority.UI_CRITICAL) {
             @Override
-            public Object doInBackground(Void[] params) {
-                Matcher matcher = PATTERN.matcher(str.toUpperCase());
-                BetterSpanBuilder builder = new BetterSpanBuilder();
-                while (matcher.find()) {
-                    if (isCancelled()) return null;
-                    String styleClass =
-                            matcher.group("INSTRUCTION") != null ? "instruction" :
-                                    matcher.group("DIRECTIVE") != null ? "directive" :
-                                            matcher.group("ALIAS") != null ? "alias" :
-                                                    matcher.group("NUMBER") != null ? "number" :
-                                                            matcher.group("COMMENT") != null ? "comment" :
-                                                                    matcher.group("DOLLAR") != null ? "dollar-thingy" :
-                                                                            null; /* never happens */
-                    assert styleClass != null;
-                    int offset = styleClass.equalsIgnoreCase("number") ? 1 : 0;
-                    builder.addStyle(styleClass, matcher.start() + offset, matcher.end());
+            public Void doInBackground(Void[] params) {
+                long start = System.nanoTime();
+                Highlighting highlighting = new Highlighting(str, tokenCache, analysis, experimental ? word : "", experimental && clickables, matches);
+                if (viewportFrom < viewportTo) publishProgress(highlighting.highlight(viewportFrom, viewportTo));
+                //rest of the document, starting right below the viewport
+                for (int from = viewportTo; from < str.length() && !isStale(); ) {
+                    int to = chunkEnd(str, from, str.length());
+                    publishProgress(highlighting.highlight(from, to));
+                    from = to;
                 }
-                for (CodeCollisionElement collision : codeView.getSyntaxAnalysis().getCollisions()) {
-                    if (isCancelled()) return null;
-                    if (collision instanceof ReservedAddressCollisionElement) {
-                        builder.addStyle("warning", collision.getDefinitionStart(), collision.getDefinitionEnd());
-                    } else {
-                        for (TextRange range : collision.getRanges()) {
-                            builder.addStyle("warning", range.getStart(), range.getEnd());
-                        }
-                    }
+                for (int from = 0; from < viewportFrom && !isStale(); ) {
+                    int to = chunkEnd(str, from, viewportFrom);
+                    publishProgress(highlighting.highlight(from, to));
+                    from = to;
                 }
-                for (CodeErrorElement error : codeView.getSyntaxAnalysis().getErrors()) {
-                    if (isCancelled()) return null;
-                    builder.addStyle("error", error.getDefinitionStart(), error.getDefinitionEnd());
-                }
-                if (Settings.getInstance().isExperimental()) {
-                    if (!highlightWord.isEmpty()) {
-                        if (isCancelled()) return null;
-                        String regex = "\\b" + highlightWord + "\\b";
-                        Matcher clickables = Pattern.compile(regex).matcher(str);
-                        while (clickables.find()) {
-                            builder.addStyle("highlight", clickables.start(), clickables.end());
-                        }
-                    }
-                    if (showClickables.get()) {
-                        final List<CharSequence> list = new ArrayList<>();
-                        Collections.addAll(list, INSTRUCTIONS);
-                        for (FieldElement fieldElement : codeView.getSyntaxAnalysis().getFields()) {
-                            list.add(fieldElement.getName());
-                        }
-                        for (RoutineElement routineElement : codeView.getSyntaxAnalysis().getRoutines()) {
-                            list.add(routineElement.getName());
-                        }
-                        CharSequence[] arr = list.toArray(new CharSequence[]{});
-                        String regex = "\\b" + String.join("|", arr) + "\\b";
-                        Matcher clickables = Pattern.compile(regex).matcher(str);
-                        while (clickables.find()) {
-                            if (isCancelled()) return null;
-                            builder.addStyle("clickable", clickables.start(), clickables.end());
-                        }
-                    }
-                    return builder.createStyleSpans(str);
-                } else {
-                    return builder.createStyleSpans(str);
+                //every line of the document was used, so entries of removed lines can go
+                if (!isStale()) {
+                    tokenCache.evict();
+                    Metrics.get(Metrics.HIGHLIGHT).recordSince(start);
                 }
+                return null;
             }
 
+            private boolean first = true;
+
             @Override
-            public void onPostExecute(Object result) {
-                if (isCancelled() || result == null) {
-                    return;
-                }
-                try {
-                    if (result instanceof ArrayList) {
-                        //noinspection unchecked
-                        for (BetterSpanBuilder.StylizedRange stylizedRange : (List<BetterSpanBuilder.StylizedRange>) result) {
-                            text.setStyle(stylizedRange.getStart(), stylizedRange.getEnd(), stylizedRange.getStyles());
-                        }
-                    } else if (result instanceof StyleSpans) {
-                        //noinspection unchecked
-                        text.setStyleSpans(0, (StyleSpans<Collection<String>>) result);
-                    }
-                } catch (Exception e) {
-                    //Usually means that text is changing too fast. Not really a bug so shhh
+            public void onProgress(Chunk chunk) {
+                //offsets are valid only for the text this chunk was computed for
+                if (isStale()) return;
+                applier.add(version, chunk.from, chunk.spans);
+                //the first chunk is the visible one and it's applied right away
+                if (first) {
+                    first = false;
+                    if (onVisibleHighlighted != null) onVisibleHighlighted.accept(version);
                 }
             }
 
+            private boolean isStale() {
+                return isCancelled() || version != codeView.getVersion();
+            }
+
         };
         task.execute();
     }
 
+    //stops applying highlighting of outdated text
+    public void cancel() {
+        if (task != null) task.cancel();
+        applier.clear();
+    }
+
+    //end of a chunk of CHUNK_LINES lines starting at from
+    private static int chunkEnd(String str, int from, int limit) {
+        int end = from;
+        for (int i = 0; i < CHUNK_LINES && end < limit; i++) {
+            int lineEnd = str.indexOf('\n', end);
+            end = lineEnd == -1 ? limit : Math.min(limit, lineEnd + 1);
+        }
+        return end;
+    }
+
+    private static class Chunk {
+        private final int from;
+        private final StyleSpans<Collection<String>> spans;
+
+        private Chunk(int from, StyleSpans<Collection<String>> spans) {
+            this.from = from;
+            this.spans = spans;
+        }
+    }
+
+    //everything needed to highlight part of the document, prepared once per highlighting task
+    private static class Highlighting {
+        private final String str;
+        private final LineTokenCache tokenCache;
+        //warnings and errors sorted by start, each of them is within a single line
+        private final List<TextRange> warnings = new ArrayList<>();
+        private final List<TextRange> errors = new ArrayList<>();
+        private final List<TextRange> searchMatches;
+        private final Matcher highlight;
+        private final Matcher clickables;
+
+        private Highlighting(String str, LineTokenCache tokenCache, SyntaxAnalyzer.AnalysisResult analysis, String highlightWord, boolean showClickables, List<TextRange> searchMatches) {
+            this.str = str;
+            this.tokenCache = tokenCache;
+            this.searchMatches = searchMatches;
+            for (CodeCollisionElement collision : analysis.getCollisions()) {
+                if (collision instanceof ReservedAddressCollisionElement) {
+                    warnings.add(new TextRange(collision.getDefinitionStart(), collision.getDefinitionEnd()));
+                } else {
+                    warnings.addAll(collision.getRanges());
+                }
+            }
+            for (CodeErrorElement error : analysis.getErrors()) {
+                errors.add(new TextRange(error.getDefinitionStart(), error.getDefinitionEnd()));
+            }
+            warnings.sort(Comparator.comparingInt(TextRange::getStart));
+            errors.sort(Comparator.comparingInt(TextRange::getStart));
+            if (!highlightWord.isEmpty()) {
+                highlight = Pattern.compile(wholeWord(Pattern.quote(highlightWord))).matcher(str).useTransparentBounds(true);
+            } else {
+                highlight = null;
+            }
+            if (showClickables) {
+                final List<CharSequence> list = new ArrayList<>();
+                for (String mnemonic : Constants.MNEMONIC_ARRAY) {
+                    list.add(Pattern.quote(mnemonic));
+                }
+                for (FieldElement fieldElement : analysis.getFields()) {
+                    list.add(Pattern.quote(fieldElement.getName()));
+                }
+                for (RoutineElement routineElement : analysis.getRoutines()) {
+                    list.add(Pattern.quote(routineElement.getName()));
+                }
+                clickables = Pattern.compile(wholeWord(String.join("|", list))).matcher(str).useTransparentBounds(true);
+            } else {
+                clickables = null;
+            }
+        }
+
+        //names can contain ?, which isn't a word char, so \b can't be used
+        private static String wholeWord(String regex) {
+            return "(?<![\\w?])(?:" + regex + ")(?![\\w?])";
+        }
+
+        //style spans of text between from and to, from has to be at the beginning of a line
+        private Chunk highlight(int from, int to) {
+            BetterSpanBuilder builder = new BetterSpanBuilder();
+            for (int lineStart = from; lineStart < to; ) {
+                int lineEnd = str.indexOf('\n', lineStart);
+                if (lineEnd == -1 || lineEnd > to) lineEnd = to;
+                LineTokenCache.Entry tokens = tokenCache.get(str, lineStart, lineEnd);
+                for (int i = 0; i < tokens.getCount(); i++) {
+                    builder.addStyle(tokens.getStyle(i), lineStart + tokens.getStart(i) - from, lineStart + tokens.getEnd(i) - from);
+                }
+                lineStart = lineEnd + 1;
+            }
+            //semantic overlays on top of lexical styles
+            addRanges(builder, warnings, "warning", from, to);
+            addRanges(builder, errors, "error", from, to);
+            addMatches(builder, highlight, "highlight", from, to);
+            addRanges(builder, searchMatches, "search", from, to);
+            addMatches(builder, clickables, "clickable", from, to);
+            return new Chunk(from, builder.createStyleSpans(to - from));
+        }
+
+        private static void addRanges(BetterSpanBuilder builder, List<TextRange> ranges, String style, int from, int to) {
+            //first range starting at or after from
+            int low = 0;
+            int high = ranges.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ranges.get(mid).getStart() < from) low = mid + 1;
+                else high = mid;
+            }
+            //search match spanning several lines can start in the previous chunk
+            if (low > 0 && ranges.get(low - 1).getEnd() > from) {
+                builder.addStyle(style, 0, Math.min(ranges.get(low - 1).getEnd(), to) - from);
+            }
+            for (int i = low; i < ranges.size() && ranges.get(i).getStart() < to; i++) {
+                TextRange range = ranges.get(i);
+                builder.addStyle(style, range.getStart() - from, Math.min(range.getEnd(), to) - from);
+            }
+        }
+
+        private static void addMatches(BetterSpanBuilder builder, Matcher matcher, String style, int from, int to) {
+            if (matcher == null) return;
+            matcher.region(from, to);
+            while (matcher.find()) {
+                builder.addStyle(style, matcher.start() - from, matcher.end() - from);
+            }
+        }
+    }
 
-    public void setPause(boolean value) {
-        pause.set(value);
+    static String getStyleClass(Lexer lexer) {
+        switch (lexer.getType()) {
+            case MNEMONIC:
+                return "instruction";
+            case DIRECTIVE:
+                return "directive";
+            case OPERAND:
+                return lexer.isAlias() ? "alias" : null;
+            case NUMBER:
+                return "number";
+            case COMMENT:
+                return "comment";
+            case CONTROL:
+                return "dollar-thingy";
+            default:
+                return null;
+        }
     }
 
     public void setShowClickables(boolean value) {
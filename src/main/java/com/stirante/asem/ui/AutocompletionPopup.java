@@ -1,8 +1,9 @@
 package com.stirante.asem.ui;
 
 import com.stirante.asem.Constants;
-import com.stirante.asem.syntax.code.FieldElement;
-import com.stirante.asem.syntax.code.RoutineElement;
+import com.stirante.asem.syntax.CompletionIndex;
+import com.stirante.asem.syntax.OperandCompletion;
+import com.stirante.asem.syntax.SymbolIndex;
 import com.sun.javafx.collections.ObservableListWrapper;
 import javafx.geometry.Bounds;
 import javafx.scene.control.ListView;
@@ -13,10 +14,8 @@ import org.fxmisc.richtext.CodeArea;
 import org.fxmisc.richtext.model.TwoDimensional;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Created by stirante
@@ -30,6 +29,11 @@ public class AutocompletionPopup extends Popup {
     private boolean autocomplete = false;
     private int autoIndex = 0;
     private boolean wasMnemonic = false;
+    //case of typed mnemonic, suggested ones use the same
+    private boolean upperCase = false;
+    private List<CompletionIndex.Suggestion> suggestions = new ArrayList<>();
+    //operand being completed, null when completing mnemonic or any symbol
+    private OperandCompletion operand;
 
     public AutocompletionPopup(CodeView view, CodeArea codeArea) {
         this.view = view;
@@ -47,17 +51,13 @@ public class AutocompletionPopup extends Popup {
         list.setOnKeyPressed(event -> {
             if (event.getCode() == KeyCode.ENTER) {
                 String item = list.getSelectionModel().getSelectedItem();
-                boolean wasCall = false;
-                if (item.equalsIgnoreCase("lcall\t\t")
-                        || item.equalsIgnoreCase("sjmp\t\t")
-                        || item.equalsIgnoreCase("ljmp\t\t")
-                        || item.equalsIgnoreCase("acall\t\t")
-                        || item.equalsIgnoreCase("jz\t\t"))
-                    wasCall = true;
-                view.insert(item.substring(autoIndex));
+                //typed word is replaced, since camel hump and fuzzy matches don't start with it
+                int caret = codeArea.getCaretPosition();
+                codeArea.replaceText(caret - autoIndex, caret, item);
                 hide();
-                if (wasMnemonic && !item.startsWith("ret")) {
-                    triggerAutocompletion(wasCall);
+                //suggest the first operand
+                if (wasMnemonic && !item.toLowerCase().startsWith("ret")) {
+                    triggerAutocompletion();
                     wasMnemonic = false;
                 }
             } else if (event.getCode() == KeyCode.ESCAPE) hide();
@@ -79,37 +79,32 @@ public class AutocompletionPopup extends Popup {
     }
 
     public boolean triggerAutocompletion() {
-        return triggerAutocompletion(false);
-    }
-
-    private boolean triggerAutocompletion(boolean wasCall) {
-        TwoDimensional.Position caret = codeArea.offsetToPosition(codeArea.getCaretPosition(), TwoDimensional.Bias.Forward);
-        TwoDimensional.Position lineStart = codeArea.position(caret.getMajor(), 0);
-        String line = codeArea.getText().substring(lineStart.toOffset(), caret.toOffset());
+        String line = getLineBeforeCaret();
         boolean isMnemonic = Constants.MNEMONIC.matcher(line).matches();
         String s = view.getWordAt(codeArea.getCaretPosition());
-        final List<String> suggestions = new ArrayList<>();
+        SymbolIndex symbols = view.getSyntaxAnalysis().getSymbols();
+        operand = isMnemonic ? null : OperandCompletion.at(line);
+        List<CompletionIndex.Suggestion> found = new ArrayList<>();
         if (isMnemonic) {
             wasMnemonic = true;
-            boolean upperCase = Character.isUpperCase(s.charAt(0));
-            String s1 = s.toUpperCase();
-            for (String s2 : Constants.MNEMONIC_ARRAY) {
-                if (s2.startsWith(s1)) {
-                    String tabs = s2.toLowerCase().startsWith("ret") ? "" : "\t\t";
-                    suggestions.add(upperCase ? s2 + tabs : s2.toLowerCase() + tabs);
-                }
-            }
+            upperCase = Character.isUpperCase(s.charAt(0));
+            CompletionIndex.MNEMONICS.find(s, found);
+            CompletionIndex.sort(found);
+        } else if (operand != null) {
+            //only registers and symbols allowed by the instruction at this operand
+            found = operand.find(symbols);
+            s = operand.getOperand();
         } else {
-            if (!wasCall)
-                suggestions.addAll(view.getSyntaxAnalysis().getFields().stream().filter(field -> field.getName().startsWith(s)).map(FieldElement::getName).collect(Collectors.toList()));
-            suggestions.addAll(view.getSyntaxAnalysis().getRoutines().stream().filter(routine -> routine.getName().startsWith(s)).map(RoutineElement::getName).collect(Collectors.toList()));
+            symbols.getCompletions().find(s, found);
+            CompletionIndex.ALIASES.find(s, found);
+            CompletionIndex.sort(found);
         }
-        if (suggestions.isEmpty()) return false;
+        if (found.isEmpty()) return false;
         Optional invoke = codeArea.getCaretBounds();
         if (invoke.isPresent()) {
             Bounds b = (Bounds) invoke.get();
             autoIndex = s.length();
-            setSuggestions(suggestions);
+            setSuggestions(found);
             autocomplete = true;
             show(codeArea, b.getMinX(), b.getMaxY());
             return true;
@@ -117,23 +112,53 @@ public class AutocompletionPopup extends Popup {
         return false;
     }
 
-    public void setSuggestions(final List<String> list) {
-        Collections.sort(list);
-        items.clear();
-        items.addAll(list);
+    //suggestions have to be already sorted
+    private void setSuggestions(List<CompletionIndex.Suggestion> list) {
+        suggestions = list;
+        List<String> texts = new ArrayList<>(list.size());
+        for (CompletionIndex.Suggestion suggestion : list) {
+            texts.add(getText(suggestion));
+        }
+        items.setAll(texts);
         this.list.getSelectionModel().select(0);
     }
 
+    private String getText(CompletionIndex.Suggestion suggestion) {
+        String name = suggestion.getName();
+        if (suggestion.getKind() != CompletionIndex.Kind.MNEMONIC) return suggestion.getText();
+        String tabs = name.startsWith("RET") ? "" : "\t\t";
+        return (upperCase ? name : name.toLowerCase()) + tabs;
+    }
+
     public void setIndex(int index) {
         this.autoIndex = index;
     }
 
+    private String getLineBeforeCaret() {
+        TwoDimensional.Position caret = codeArea.offsetToPosition(codeArea.getCaretPosition(), TwoDimensional.Bias.Forward);
+        return codeArea.getParagraph(caret.getMajor()).getText().substring(0, caret.getMinor());
+    }
+
     public void onChanges() {
-        String s = view.getWordAt(codeArea.getCaretPosition());
-        autoIndex = s.length();
-        items.removeIf(str -> !str.toLowerCase().startsWith(s.toLowerCase()));
-        if (items.isEmpty()) {
+        //only already shown suggestions are filtered, so it doesn't depend on the number of symbols
+        List<CompletionIndex.Suggestion> narrowed;
+        if (operand != null) {
+            OperandCompletion current = OperandCompletion.at(getLineBeforeCaret());
+            if (!operand.isSameOperand(current)) {
+                hide();
+                return;
+            }
+            autoIndex = current.getOperand().length();
+            narrowed = current.narrow(suggestions);
+        } else {
+            String s = view.getWordAt(codeArea.getCaretPosition());
+            autoIndex = s.length();
+            narrowed = CompletionIndex.narrow(suggestions, s);
+        }
+        if (narrowed.isEmpty()) {
             hide();
+        } else {
+            setSuggestions(narrowed);
         }
     }
 }
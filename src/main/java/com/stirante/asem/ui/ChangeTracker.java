@@ -0,0 +1,89 @@
+package com.stirante.asem.ui;
+
+import com.stirante.asem.utils.TextRange;
+import org.fxmisc.richtext.model.EditableStyledDocument;
+import org.fxmisc.richtext.model.PlainTextChange;
+import org.fxmisc.richtext.model.StyledDocument;
+import org.fxmisc.undo.UndoManager;
+
+/**
+ * Tells whether text in the editor differs from the last loaded or saved one. Cheap checks go first: position in undo
+ * history, then length and only if the lengths are equal the part of the text touched by edits is compared with the
+ * saved one. Text before the first and after the last edit since saving is known to be the same, so checking after
+ * every keystroke costs as much as the edited part, not the whole file.
+ */
+class ChangeTracker {
+
+    private final EditableStyledDocument<?, ?, ?> document;
+    private final UndoManager<?> undoManager;
+    //immutable snapshot of the saved document
+    private StyledDocument<?, ?, ?> saved;
+    //number of chars at the beginning and at the end of the text, which are the same as in the saved text
+    private int samePrefix;
+    private int sameSuffix;
+    //length of the editor text, updated with every change
+    private int length;
+    //false if the undo history position of the saved text was lost
+    private boolean marked;
+
+    ChangeTracker(EditableStyledDocument<?, ?, ?> document, UndoManager<?> undoManager) {
+        this.document = document;
+        this.undoManager = undoManager;
+        //all changes of a multi change, each of them in the text after the previous one
+        document.multiPlainChanges().subscribe(changes -> {
+            for (PlainTextChange change : changes) {
+                samePrefix = Math.min(samePrefix, change.getPosition());
+                sameSuffix = Math.min(sameSuffix, length - change.getRemovalEnd());
+                length += change.getInserted().length() - change.getRemoved().length();
+            }
+        });
+        markSaved();
+    }
+
+    //remembers current editor text as the saved one
+    void markSaved() {
+        markSaved(document.snapshot(), undoManager.getCurrentPosition());
+    }
+
+    //remembers snapshot taken earlier, position is the undo history position at the time of the snapshot
+    void markSaved(StyledDocument<?, ?, ?> snapshot, UndoManager.UndoPosition position) {
+        saved = snapshot;
+        length = document.getLength();
+        //snapshot of unchanged document is the same instance, otherwise the first check finds where they differ
+        int same = snapshot == document.snapshot() ? length : 0;
+        samePrefix = same;
+        sameSuffix = same;
+        marked = position.isValid();
+        if (marked) position.mark();
+    }
+
+    boolean isChanged() {
+        if (marked && undoManager.isAtMarkedPosition()) return false;
+        if (length != saved.length()) return true;
+        int from = samePrefix;
+        int to = length - sameSuffix;
+        if (from >= to) return false;
+        String current = document.getText(from, to);
+        String old = saved.getText(from, to);
+        int first = 0;
+        while (first < current.length() && current.charAt(first) == old.charAt(first)) first++;
+        if (first == current.length()) {
+            samePrefix = length;
+            sameSuffix = length;
+            return false;
+        }
+        int last = current.length() - 1;
+        while (current.charAt(last) == old.charAt(last)) last--;
+        //next check compares only the part between the first and the last difference
+        samePrefix = from + first;
+        sameSuffix = length - (from + last + 1);
+        return true;
+    }
+
+    //part of the text, which is compared with the saved text when lengths are equal, empty if they are the same
+    TextRange getComparedRange() {
+        int from = Math.min(samePrefix, length);
+        return new TextRange(from, Math.max(from, length - sameSuffix));
+    }
+
+}
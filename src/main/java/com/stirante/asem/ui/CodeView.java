@@ -2,20 +2,25 @@ package com.stirante.asem.ui;
 
 import com.stirante.asem.Constants;
 import com.stirante.asem.Main;
+import com.stirante.asem.syntax.AnalysisService;
 import com.stirante.asem.syntax.SyntaxAnalyzer;
 import com.stirante.asem.syntax.SyntaxHighlighter;
-import com.stirante.asem.syntax.code.FieldElement;
-import com.stirante.asem.syntax.code.RoutineElement;
+import com.stirante.asem.syntax.code.CodeElement;
 import com.stirante.asem.ui.tooltip.TooltipPopup;
 import com.stirante.asem.utils.AsyncTask;
 import com.stirante.asem.utils.ConfigManager;
 import com.stirante.asem.utils.DelayedTask;
+import com.stirante.asem.utils.Metrics;
+import com.stirante.asem.utils.TaskPool;
+import com.stirante.asem.utils.TextRange;
+import com.stirante.asem.utils.TextSearch;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.control.*;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
 import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.StackPane;
@@ -25,23 +30,29 @@ import org.fxmisc.richtext.CharacterHit;
 import org.fxmisc.richtext.CodeArea;
 import org.fxmisc.richtext.LineNumberFactory;
 import org.fxmisc.richtext.event.MouseOverTextEvent;
+import org.fxmisc.richtext.model.ReadOnlyStyledDocument;
 import org.fxmisc.richtext.model.TwoDimensional;
+import org.fxmisc.undo.UndoManager;
 
 import java.io.*;
-import java.nio.file.Files;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.time.Duration;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
+import java.util.regex.PatternSyntaxException;
 
 /**
  * Created by stirante
  */
 public class CodeView extends Tab {
     private static int newCounter = 1;
+    private static int tabCounter = 1;
     private final TooltipPopup tooltipPopup;
     @FXML
     public StackPane content;
@@ -50,21 +61,60 @@ public class CodeView extends Tab {
     private File file;
     private CodeArea codeArea;
     private boolean changed = false;
-    private String original = "";
-    private SyntaxAnalyzer.AnalysisResult syntaxAnalysis;
+    private ChangeTracker changeTracker;
+    //saves are numbered, so older one never overwrites newer one, which was written before it
+    private final Object saveLock = new Object();
+    private long saveSequence;
+    private long writtenSequence;
+    private long savedSequence;
+    //last started save, null when it's done
+    private AsyncTask<?, ?, ?> saving;
+    private int saveProgress = -1;
+    //null when file is loaded
+    private AsyncTask<?, ?, ?> loading;
+    //file wasn't read completely, so the text in the editor must never be saved over it
+    private boolean loadFailed;
+    //last search and its matches, valid only for the text version it was done for
+    private SearchResult lastSearch;
+    private AsyncTask<?, ?, ?> searching;
+    private final AnalysisService analysisService;
+    //last complete analysis, replaced as a whole when newer one is ready
+    private volatile SyntaxAnalyzer.AnalysisResult syntaxAnalysis = new SyntaxAnalyzer.AnalysisResult();
     private AutocompletionPopup autocompletionPopup;
     private SyntaxHighlighter highlighter;
     private DelayedTask elementHighlightTask;
     private DelayedTask syntaxHighlightTask;
+    private final String latencyName = "Keystroke to highlight (tab " + tabCounter++ + ")";
+    //time of the first edit, which isn't highlighted yet
+    private long pendingEdit = -1;
 
     public CodeView(Main app, File f) {
         this.file = f;
         //handle tab close
         setOnCloseRequest(event -> onClose());
+        analysisService = new AnalysisService(this::onAnalysis);
+        setOnClosed(event -> {
+            if (loading != null) loading.cancel();
+            if (searching != null) searching.cancel();
+            analysisService.shutdown();
+            elementHighlightTask.cancel();
+            syntaxHighlightTask.cancel();
+            highlighter.cancel();
+            Metrics.remove(latencyName);
+        });
 
         codeArea = new CodeArea();
+        changeTracker = new ChangeTracker(codeArea.getContent(), codeArea.getUndoManager());
+        //undo and redo move the position after text change is already handled
+        codeArea.getUndoManager().atMarkedPositionProperty().addListener((observable, oldValue, newValue) -> updateChanged());
 
         highlighter = new SyntaxHighlighter(this, codeArea);
+        highlighter.setOnVisibleHighlighted(version -> {
+            if (pendingEdit != -1 && version == getVersion()) {
+                Metrics.get(latencyName).recordSince(pendingEdit);
+                pendingEdit = -1;
+            }
+        });
         autocompletionPopup = new AutocompletionPopup(this, codeArea);
         tooltipPopup = new TooltipPopup(this, codeArea);
         elementHighlightTask = new DelayedTask(500L);
@@ -77,9 +127,17 @@ public class CodeView extends Tab {
         codeArea.setStyle("-fx-font-family: " + Settings.getInstance().getFont().getFamily() + ";-fx-font-size: " + Settings.getInstance().getFont().getSize() + ";");
         Settings.getInstance().fontProperty().addListener((observable, oldValue, newValue) -> codeArea.setStyle("-fx-font-family: " + newValue.getFamily() + ";-fx-font-size: " + newValue.getSize() + ";"));
         codeArea.setParagraphGraphicFactory(LineNumberFactory.get(codeArea));
-        codeArea.textProperty().addListener((observable, oldValue, newValue) -> {
+        //all changes of a multi change are a single version of the text
+        codeArea.multiPlainChanges().subscribe(changes -> {
+            //highlighting of the new version starts when its analysis is done
+            if (pendingEdit == -1) pendingEdit = System.nanoTime();
+            analysisService.submit(changes);
+            highlighter.cancel();
+            if (lastSearch != null) {
+                lastSearch = null;
+                highlighter.setSearchMatches(Collections.emptyList());
+            }
             checkChanges();
-            computeHighlighting();
         });
         loadFile();
         //load tab layout
@@ -105,6 +163,11 @@ public class CodeView extends Tab {
         return SimpleDateFormat.getTimeInstance().format(new Date(System.currentTimeMillis()));
     }
 
+    private void onAnalysis(SyntaxAnalyzer.AnalysisResult result) {
+        syntaxAnalysis = result;
+        highlighter.computeHighlighting();
+    }
+
     private void computeHighlighting() {
         syntaxHighlightTask.start(() -> highlighter.computeHighlighting());
     }
@@ -120,22 +183,13 @@ public class CodeView extends Tab {
             } else if (event.getCode() == KeyCode.CONTROL && Settings.getInstance().isExperimental()) {
                 highlighter.setShowClickables(true);
                 computeHighlighting();
-            } else if (event.getCode() == KeyCode.ENTER) {
-                int l = codeArea.offsetToPosition(codeArea.getCaretPosition(), TwoDimensional.Bias.Forward).getMajor() - 1;
-                int start = codeArea.position(l, 0).toOffset();
-                int end;
-                int diff = 0;
-                try {
-                    end = codeArea.position(l + 1, 0).toOffset() - 1;
-                } catch (Exception e) {
-                    end = codeArea.getLength();
-                }
-                String line = codeArea.getText().substring(start, end);
-                Matcher matcher = Constants.WHITESPACE.matcher(line);
-                if (matcher.matches()) {
-                    String str = matcher.group(1);
-                    codeArea.insertText(codeArea.getCaretPosition(), str);
-                }
+            }
+        });
+        //new line is inserted with its indentation at once, instead of inserting indentation after it
+        codeArea.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+            if (event.getCode() == KeyCode.ENTER && !event.isControlDown() && !event.isAltDown() && !event.isShortcutDown() && codeArea.isEditable()) {
+                insertNewLine();
+                event.consume();
             }
         });
         codeArea.setOnKeyReleased(event -> {
@@ -146,94 +200,103 @@ public class CodeView extends Tab {
         });
     }
 
+    //comments or uncomments current line or all selected lines with a single edit
     private void triggerComment() {
-        final List<Integer> lines = new ArrayList<>();
-        boolean wasSelected = false;
-        int start;
-        int end = 0;
-        if (codeArea.selectedTextProperty().getValue().isEmpty()) {
-            lines.add(codeArea.offsetToPosition(codeArea.getCaretPosition(), TwoDimensional.Bias.Forward).getMajor());
-            start = codeArea.getCaretPosition();
-        } else {
-            wasSelected = true;
-            start = codeArea.selectionProperty().getValue().getStart();
-            end = codeArea.selectionProperty().getValue().getEnd();
-            int startLine = codeArea.offsetToPosition(start, TwoDimensional.Bias.Forward).getMajor();
-            int endLine = codeArea.offsetToPosition(end, TwoDimensional.Bias.Forward).getMajor();
-            for (int i = startLine; i <= endLine; i++) {
-                lines.add(i);
-            }
-        }
-        highlighter.setPause(true);
-        final int[] diff = {0};
-        final int[] first = {0};
-        lines.forEach(integer -> {
-            int i = commentLine(integer);
-            diff[0] += i;
-            if (first[0] == 0) first[0] = i;
-        });
-        highlighter.setPause(false);
-        checkChanges();
-        computeHighlighting();
-        if (wasSelected) {
-            end += diff[0];
-            codeArea.selectRange(start + first[0], end);
-        } else {
-            start += diff[0];
-            codeArea.moveTo(start);
-            codeArea.requestFollowCaret();
+        IndexRange selection = codeArea.getSelection();
+        int startLine = codeArea.offsetToPosition(selection.getStart(), TwoDimensional.Bias.Forward).getMajor();
+        int endLine = codeArea.offsetToPosition(selection.getEnd(), TwoDimensional.Bias.Forward).getMajor();
+        EditTransaction edit = edit();
+        for (int i = startLine; i <= endLine; i++) {
+            commentLine(edit, i);
         }
+        edit.commit();
+        if (selection.getLength() == 0) codeArea.requestFollowCaret();
     }
 
-    private int commentLine(int l) {
-        int start = codeArea.position(l, 0).toOffset();
-        int end;
-        int diff = 0;
-        try {
-            end = codeArea.position(l + 1, 0).toOffset() - 1;
-        } catch (Exception e) {
-            end = codeArea.getLength();
-        }
-        String line = codeArea.getText().substring(start, end);
+    private void commentLine(EditTransaction edit, int l) {
+        int start = codeArea.getAbsolutePosition(l, 0);
+        String line = codeArea.getParagraph(l).getText();
         if (Constants.IS_COMMENTED.matcher(line).matches()) {
-            line = line.replaceFirst(";", "");
-            diff = -1;
+            int i = line.indexOf(';');
+            edit.delete(start + i, start + i + 1);
         } else {
             Matcher matcher = Constants.TO_COMMENT.matcher(line);
             if (matcher.find()) {
-                line = matcher.group(1) + ";" + matcher.group(2);
-                diff = 1;
+                edit.insert(start + matcher.end(1), ";");
             }
         }
-        codeArea.replaceText(start, end, line);
-        return diff;
+    }
+
+    //new line with indentation of the current one, as a single edit
+    private void insertNewLine() {
+        IndexRange selection = codeArea.getSelection();
+        TwoDimensional.Position position = codeArea.offsetToPosition(selection.getStart(), TwoDimensional.Bias.Forward);
+        String line = codeArea.getParagraph(position.getMajor()).getText().substring(0, position.getMinor());
+        Matcher matcher = Constants.WHITESPACE.matcher(line);
+        String indent = matcher.matches() ? matcher.group(1) : "";
+        EditTransaction edit = edit().replace(selection.getStart(), selection.getEnd(), "\n" + indent);
+        int caret = edit.map(selection.getEnd());
+        edit.commit();
+        codeArea.moveTo(caret);
+        codeArea.requestFollowCaret();
+    }
+
+    //changes added to the transaction are applied as a single change, undone in one step and analyzed once
+    public EditTransaction edit() {
+        return new EditTransaction(codeArea);
     }
 
     private void loadFile() {
-        //just loading file async for smoother experience
+        //file is appended in chunks, so the first screen, its analysis and highlighting don't wait for the whole file
         if (file != null) {
-            new AsyncTask<Void, Void, String>() {
+            long start = System.nanoTime();
+            codeArea.setEditable(false);
+            loading = new AsyncTask<Void, String, IOException>(TaskPool.Priority.IO) {
                 @Override
-                public String doInBackground(Void[] params) {
+                public IOException doInBackground(Void[] params) {
                     try {
-                        return new String(Files.readAllBytes(file.toPath()));
+                        DocumentReader.read(file.toPath(), this::publishProgress);
+                    } catch (ClosedByInterruptException e) {
+                        //tab was closed
                     } catch (IOException e) {
                         e.printStackTrace();
-                        return "";
+                        return e;
                     }
+                    return null;
                 }
 
                 @Override
-                public void onPostExecute(String result) {
-                    original = result;
-                    codeArea.replaceText(0, 0, result);
-                    codeArea.moveTo(0);
-                    codeArea.requestFollowCaret();
+                public void onProgress(String chunk) {
+                    boolean first = codeArea.getLength() == 0;
+                    codeArea.appendText(chunk);
+                    if (first) {
+                        codeArea.moveTo(0);
+                        codeArea.requestFollowCaret();
+                    }
+                }
+
+                @Override
+                public void onPostExecute(IOException result) {
+                    loading = null;
+                    if (result != null) {
+                        //only part of the file is in the editor, so it stays read only and isn't marked as saved
+                        loadFailed = true;
+                        Alert alert = new Alert(Alert.AlertType.ERROR);
+                        alert.setTitle("Load failed");
+                        alert.setHeaderText(null);
+                        alert.setContentText("Failed to load " + file.getName() + "!\n" + result.getMessage());
+                        alert.getDialogPane().getStylesheets().add(getClass().getResource("/style.css").toExternalForm());
+                        alert.show();
+                        return;
+                    }
+                    codeArea.setEditable(true);
                     codeArea.getUndoManager().forgetHistory();
-                    codeArea.getUndoManager().mark();
+                    changeTracker.markSaved();
                     checkChanges();
+                    Metrics.get(Metrics.LOAD).recordSince(start);
                 }
-            }.execute();
+            };
+            loading.execute();
         } else changed = true;
     }
 
@@ -272,19 +335,10 @@ public class CodeView extends Tab {
                 elementHighlightTask.start(() -> {
                     String wordAt = getWordAt(newValue);
                     String old = highlighter.getHighlightWord();
-                    for (RoutineElement element : syntaxAnalysis.getRoutines()) {
-                        if (element.getName().equals(wordAt)) {
-                            highlighter.setHighlightWord(wordAt);
-                            computeHighlighting();
-                            return;
-                        }
-                    }
-                    for (FieldElement element : syntaxAnalysis.getFields()) {
-                        if (element.getName().equals(wordAt)) {
-                            highlighter.setHighlightWord(wordAt);
-                            computeHighlighting();
-                            return;
-                        }
+                    if (syntaxAnalysis.getSymbols().contains(wordAt)) {
+                        highlighter.setHighlightWord(wordAt);
+                        computeHighlighting();
+                        return;
                     }
                     highlighter.setHighlightWord("");
                     if (!old.isEmpty()) computeHighlighting();
@@ -296,54 +350,61 @@ public class CodeView extends Tab {
         CharacterHit hit = codeArea.hit(event.getX(), event.getY());
         int index = hit.getInsertionIndex();
         String s = getWordAt(index);
-        for (FieldElement field : syntaxAnalysis.getFields()) {
-            if (field.matches(s, 0, 0)) {
-                codeArea.moveTo(field.getDefinitionStart());
-                codeArea.requestFollowCaret();
-                return;
-            }
-        }
-        for (RoutineElement routine : syntaxAnalysis.getRoutines()) {
-            if (routine.matches(s, 0, 0)) {
-                codeArea.moveTo(routine.getDefinitionStart());
-                codeArea.requestFollowCaret();
-                return;
-            }
+        CodeElement element = syntaxAnalysis.getSymbols().get(s);
+        if (element != null) {
+            codeArea.moveTo(element.getDefinitionStart());
+            codeArea.requestFollowCaret();
         }
     }
 
+    //word (Constants.WORD) which contains index or ends at it, only the paragraph with index is scanned
     public String getWordAt(int index) {
-        int start = index;
-        int end = index;
-        Matcher matcher = Constants.WORD.matcher(codeArea.getText());
-        while (matcher.find()) {
-            if (matcher.start() <= index && matcher.end() >= index) {
-                start = matcher.start();
-                end = matcher.end();
-            }
-        }
-        return codeArea.getText().substring(start, end);
+        TwoDimensional.Position position = codeArea.offsetToPosition(index, TwoDimensional.Bias.Forward);
+        String line = codeArea.getParagraph(position.getMajor()).getText();
+        int start = Math.min(position.getMinor(), line.length());
+        int end = start;
+        while (start > 0 && isWordPart(line.charAt(start - 1))) start--;
+        while (end < line.length() && isWordPart(line.charAt(end))) end++;
+        return line.substring(start, end);
+    }
+
+    private static boolean isWordPart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '.';
     }
 
     //checks changes between original code and the one inside editor and depending on the result changes tab title
     private void checkChanges() {
-        syntaxAnalysis = SyntaxAnalyzer.analyze(codeArea.getText());
         if (autocompletionPopup.isAutocompletion()) {
             autocompletionPopup.onChanges();
         }
-        if (file == null) {
+        updateChanged();
+    }
+
+    private void updateChanged() {
+        //partially loaded text isn't a change made by the user
+        if (file == null || loading != null || loadFailed) {
             return;
         }
-        boolean old = changed;
-        changed = !codeArea.getText().replaceAll("\n", "\r\n").equals(original);
-        if (changed && !old) {
-            setText(file.getName() + "*");
-        } else {
-            if (!changed && old) setText(file.getName());
-        }
+        changed = changeTracker.isChanged();
+        updateTitle();
+    }
+
+    private void updateTitle() {
+        if (file == null) return;
+        String title = file.getName() + (changed ? "*" : "");
+        if (saveProgress != -1) title += " (saving " + saveProgress + "%)";
+        setText(title);
     }
 
     public boolean save() {
+        return save(null);
+    }
+
+    //writes the text in background, returns false if user didn't choose file or the file isn't loaded, onSaved is called
+    //after successful save
+    public boolean save(Runnable onSaved) {
+        //saving partially loaded text would truncate the file
+        if (loading != null || loadFailed) return false;
         if (file == null) {
             //it's a new file
             FileChooser fileChooser = new FileChooser();
@@ -363,26 +424,71 @@ public class CodeView extends Tab {
                 return false;
             }
         }
-        try {
-            FileOutputStream fos = new FileOutputStream(file);
-            String text = codeArea.getText().replaceAll("\n", "\r\n");
-            fos.write(text.getBytes());
-            fos.flush();
-            fos.close();
-            original = text;
-            changed = false;
-            setText(file.getName());
-            return true;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+        //snapshot is immutable, so the editor can be used while it's written
+        ReadOnlyStyledDocument<?, ?, ?> document = codeArea.getContent().snapshot();
+        UndoManager.UndoPosition position = codeArea.getUndoManager().getCurrentPosition();
+        Path target = file.toPath();
+        long sequence = ++saveSequence;
+        AsyncTask<Void, Integer, IOException> task = new AsyncTask<Void, Integer, IOException>(TaskPool.Priority.IO) {
+            @Override
+            public IOException doInBackground(Void[] params) {
+                long start = System.nanoTime();
+                try {
+                    synchronized (saveLock) {
+                        if (sequence < writtenSequence) return null;
+                        DocumentWriter.write(target, document, this::publishProgress);
+                        writtenSequence = sequence;
+                    }
+                    Metrics.get(Metrics.SAVE).recordSince(start);
+                    return null;
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    return e;
+                }
+            }
+
+            @Override
+            public void onProgress(Integer progress) {
+                if (saving != this) return;
+                saveProgress = progress;
+                updateTitle();
+            }
+
+            @Override
+            public void onPostExecute(IOException result) {
+                if (saving == this) {
+                    saving = null;
+                    saveProgress = -1;
+                }
+                if (result != null) {
+                    updateTitle();
+                    Alert alert = new Alert(Alert.AlertType.ERROR);
+                    alert.setTitle("Save failed");
+                    alert.setHeaderText(null);
+                    alert.setContentText("Failed to save " + target.getFileName() + "!\n" + result.getMessage());
+                    alert.getDialogPane().getStylesheets().add(getClass().getResource("/style.css").toExternalForm());
+                    alert.show();
+                    return;
+                }
+                if (sequence > savedSequence) {
+                    savedSequence = sequence;
+                    changeTracker.markSaved(document, position);
+                    updateChanged();
+                }
+                if (onSaved != null) onSaved.run();
+            }
+        };
+        saving = task;
+        saveProgress = 0;
+        updateTitle();
+        task.execute();
+        return true;
     }
 
     public void onClose() {
         if (changed) {
             Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
-            alert.setTitle("Unsaved changes in tab " + getText().substring(0, getText().length() - 1));
+            alert.setTitle("Unsaved changes in tab " + (file != null ? file.getName() : getText().substring(0, getText().length() - 1)));
             alert.setHeaderText(null);
             alert.setContentText("Do you want to save it?");
             alert.getDialogPane().getStylesheets().add(getClass().getResource("/style.css").toExternalForm());
@@ -396,6 +502,9 @@ public class CodeView extends Tab {
                 save();
             }
         }
+        //tab or the whole application is closing, so the last save has to finish here
+        AsyncTask<?, ?, ?> task = saving;
+        if (task != null) task.await();
     }
 
     @Override
@@ -419,6 +528,7 @@ public class CodeView extends Tab {
         ProcessBuilder pb = new ProcessBuilder((String) ConfigManager.getMap().get("assembler-file"), file.getAbsolutePath());
         //set working directory to the one containing asm file (fixes MCU files missing)
         pb.directory(file.getParentFile());
+        long start = System.nanoTime();
         try {
             //start process and wait for it't end
             Process process = pb.start();
@@ -438,6 +548,7 @@ public class CodeView extends Tab {
             }
             br.close();
             sb.append("\n[").append(getTime()).append("] Compiler terminated with code ").append(code);
+            Metrics.get(Metrics.COMPILE).recordSince(start);
             return sb.toString();
         } catch (IOException | InterruptedException e) {
             e.printStackTrace();
@@ -518,37 +629,174 @@ public class CodeView extends Tab {
         codeArea.requestFollowCaret();
     }
 
-    public String find(String text) {
-        int start = codeArea.selectedTextProperty().getValue().isEmpty() ? codeArea.getCaretPosition() : codeArea.selectionProperty().getValue().getEnd();
-        int i = codeArea.getText().toLowerCase().indexOf(text.toLowerCase(), start);
-        if (i == -1) {
-            i = codeArea.getText().toLowerCase().indexOf(text.toLowerCase());
-            if (i == -1) {
-                return "Not found!";
-            } else {
-                codeArea.selectRange(i, text.length() + i);
-                codeArea.requestFollowCaret();
-                return "";
+    //selects the next match after selection, status is called with the number of matches when search is done
+    public void find(String text, boolean regex, Consumer<String> status) {
+        search(text, regex, status, result -> selectNext(result, status));
+    }
+
+    private void selectNext(SearchResult result, Consumer<String> status) {
+        List<TextRange> matches = result.matches;
+        if (matches.isEmpty()) {
+            status.accept("Not found!");
+            return;
+        }
+        int start = codeArea.getSelection().getLength() == 0 ? codeArea.getCaretPosition() : codeArea.getSelection().getEnd();
+        //first match starting at or after start, wraps around to the first one
+        int low = 0;
+        int high = matches.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (matches.get(mid).getStart() < start) low = mid + 1;
+            else high = mid;
+        }
+        int index = low == matches.size() ? 0 : low;
+        TextRange match = matches.get(index);
+        codeArea.selectRange(match.getStart(), match.getEnd());
+        codeArea.requestFollowCaret();
+        status.accept((index + 1) + " of " + matches.size() + (matches.size() == 1 ? " match" : " matches"));
+    }
+
+    //replaces selected match and selects the next one; selects the next match, if selection isn't a match
+    public void replace(String text, String replacement, boolean regex, Consumer<String> status) {
+        search(text, regex, status, result -> {
+            IndexRange selection = codeArea.getSelection();
+            for (TextRange match : result.matches) {
+                if (match.getStart() == selection.getStart() && match.getEnd() == selection.getEnd()) {
+                    try {
+                        codeArea.replaceText(match.getStart(), match.getEnd(), result.search.replace(result.text, match, replacement));
+                    } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                        status.accept("Invalid replacement!");
+                        return;
+                    }
+                    find(text, regex, status);
+                    return;
+                }
             }
-        } else {
-            codeArea.selectRange(i, text.length() + i);
-            codeArea.requestFollowCaret();
-            return "";
+            selectNext(result, status);
+        });
+    }
+
+    //replaces all matches in a single edit transaction, so it's undone at once
+    public void replaceAll(String text, String replacement, boolean regex, Consumer<String> status) {
+        if (searching != null) searching.cancel();
+        ReadOnlyStyledDocument<?, ?, ?> document = codeArea.getContent().snapshot();
+        long version = getVersion();
+        searching = new AsyncTask<Void, Void, List<TextSearch.Replacement>>(TaskPool.Priority.UI_CRITICAL) {
+            @Override
+            public List<TextSearch.Replacement> doInBackground(Void[] params) {
+                long start = System.nanoTime();
+                try {
+                    List<TextSearch.Replacement> result = new TextSearch(text, regex).replaceAll(document.getText(), replacement);
+                    Metrics.get(Metrics.SEARCH).recordSince(start);
+                    return result;
+                } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                    //invalid expression or group reference in replacement
+                    return null;
+                }
+            }
+
+            @Override
+            public void onPostExecute(List<TextSearch.Replacement> result) {
+                if (searching == this) searching = null;
+                //text changed while replacement was computed
+                if (version != getVersion()) return;
+                if (result == null) {
+                    status.accept("Invalid regular expression or replacement!");
+                } else if (result.isEmpty()) {
+                    status.accept("Not found!");
+                } else {
+                    EditTransaction edit = edit();
+                    for (TextSearch.Replacement replacement : result) {
+                        edit.replace(replacement.getFrom(), replacement.getTo(), replacement.getText());
+                    }
+                    edit.commit();
+                    status.accept("Replaced " + result.size() + (result.size() == 1 ? " occurrence" : " occurrences"));
+                }
+            }
+        };
+        searching.execute();
+    }
+
+    //calls then with matches in the current text, search is done in background unless it's the same as the last one
+    private void search(String text, boolean regex, Consumer<String> status, Consumer<SearchResult> then) {
+        long version = getVersion();
+        if (lastSearch != null && lastSearch.version == version && lastSearch.search.isRegex() == regex && lastSearch.search.getQuery().equals(text)) {
+            then.accept(lastSearch);
+            return;
         }
+        if (searching != null) searching.cancel();
+        //snapshot is immutable, so it can be searched while the text is edited
+        ReadOnlyStyledDocument<?, ?, ?> document = codeArea.getContent().snapshot();
+        searching = new AsyncTask<Void, Void, SearchResult>(TaskPool.Priority.UI_CRITICAL) {
+            @Override
+            public SearchResult doInBackground(Void[] params) {
+                long start = System.nanoTime();
+                try {
+                    TextSearch search = new TextSearch(text, regex);
+                    String str = document.getText();
+                    SearchResult result = new SearchResult(search, version, str, search.findAll(str));
+                    Metrics.get(Metrics.SEARCH).recordSince(start);
+                    return result;
+                } catch (PatternSyntaxException e) {
+                    return null;
+                }
+            }
+
+            @Override
+            public void onPostExecute(SearchResult result) {
+                if (searching == this) searching = null;
+                //matches are outdated, next search will be done on the new text
+                if (version != getVersion()) return;
+                if (result == null) {
+                    status.accept("Invalid regular expression!");
+                    return;
+                }
+                lastSearch = result;
+                highlighter.setSearchMatches(result.matches);
+                highlighter.computeHighlighting();
+                then.accept(result);
+            }
+        };
+        searching.execute();
     }
 
-    public String getSelectedText() {
-        return codeArea.getSelectedText();
+    //removes highlighting of search matches
+    public void clearSearch() {
+        if (searching != null) {
+            searching.cancel();
+            searching = null;
+        }
+        if (lastSearch == null) return;
+        lastSearch = null;
+        highlighter.setSearchMatches(Collections.emptyList());
+        highlighter.computeHighlighting();
     }
 
-    public String replace(String text, String replacement) {
-        if (getSelectedText().isEmpty() || !getSelectedText().equalsIgnoreCase(text)) return "Not found!";
-        codeArea.replaceText(codeArea.selectionProperty().getValue().getStart(), codeArea.selectionProperty().getValue().getEnd(), replacement);
-        find(text);
-        return "";
+    public String getSelectedText() {
+        return codeArea.getSelectedText();
     }
 
     public SyntaxAnalyzer.AnalysisResult getSyntaxAnalysis() {
         return syntaxAnalysis;
     }
+
+    //version of the text in editor, incremented by every change
+    public long getVersion() {
+        return analysisService.getVersion();
+    }
+
+    private static class SearchResult {
+        private final TextSearch search;
+        private final long version;
+        private final String text;
+        //sorted by start
+        private final List<TextRange> matches;
+
+        private SearchResult(TextSearch search, long version, String text, List<TextRange> matches) {
+            this.search = search;
+            this.version = version;
+            this.text = text;
+            this.matches = matches;
+        }
+    }
 }
@@ -0,0 +1,64 @@
+package com.stirante.asem.ui;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Reads text file in chunks, decoding it on the fly, so the beginning of a big file can be shown before the rest is
+ * read. Line separators are converted to \n, even when \r\n is split between two chunks.
+ */
+class DocumentReader {
+    //first chunk is small to show the first screen quickly
+    private static final int FIRST_CHUNK = 16 * 1024;
+    private static final int CHUNK = 256 * 1024;
+
+    static void read(Path path, Consumer<String> chunks) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            //same charset and replacement of malformed input as new String(bytes)
+            CharsetDecoder decoder = Charset.defaultCharset().newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            ByteBuffer bytes = ByteBuffer.allocate(CHUNK);
+            CharBuffer chars = CharBuffer.allocate(CHUNK);
+            StringBuilder chunk = new StringBuilder(FIRST_CHUNK);
+            int limit = FIRST_CHUNK;
+            boolean afterCr = false;
+            boolean eof = false;
+            while (!eof) {
+                //before the first chunk is sent only as many bytes are read as needed for it
+                bytes.limit(limit == FIRST_CHUNK ? bytes.position() + Math.max(64, FIRST_CHUNK - chunk.length()) : bytes.capacity());
+                eof = channel.read(bytes) == -1;
+                bytes.flip();
+                decoder.decode(bytes, chars, eof);
+                if (eof) decoder.flush(chars);
+                bytes.compact();
+                chars.flip();
+                while (chars.hasRemaining()) {
+                    char c = chars.get();
+                    if (c == '\r') {
+                        chunk.append('\n');
+                        afterCr = true;
+                        continue;
+                    }
+                    if (c != '\n' || !afterCr) chunk.append(c);
+                    afterCr = false;
+                }
+                chars.clear();
+                if (chunk.length() >= limit || (eof && chunk.length() > 0)) {
+                    chunks.accept(chunk.toString());
+                    chunk.setLength(0);
+                    limit = CHUNK;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.stirante.asem.ui;
+
+import org.fxmisc.richtext.model.Paragraph;
+import org.fxmisc.richtext.model.StyledDocument;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.*;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Writes document to a file with \r\n line separators. Paragraphs are encoded straight into a small buffer, so the whole
+ * text is never copied. Text goes to a temporary file next to the target, which replaces the target only after it's
+ * completely written and flushed to the disk, so crash in the middle of saving leaves the old file untouched. The temporary
+ * file gets permissions of the target first, so replacing it doesn't change them. Symbolic link is followed, so the file
+ * it points to is replaced and the link stays.
+ */
+class DocumentWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final CharBuffer SEPARATOR = CharBuffer.wrap("\r\n");
+
+    //progress receives percent of written paragraphs whenever it changes
+    static void write(Path path, StyledDocument<?, ?, ?> document, IntConsumer progress) throws IOException {
+        Path target;
+        //new file gets default permissions of the directory, temp file would replace it with owner only ones
+        boolean created = false;
+        if (Files.exists(path)) {
+            target = path.toRealPath();
+            //replacing the file through its directory would succeed even if the file itself can't be written
+            if (!Files.isWritable(target)) throw new AccessDeniedException(target.toString(), null, "File is read only");
+        } else {
+            target = Files.createFile(resolveLinks(path)).toRealPath();
+            created = true;
+        }
+        Path dir = target.getParent();
+        Path temp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        boolean moved = false;
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                //same charset and replacement of unmappable chars as String.getBytes
+                CharsetEncoder encoder = Charset.defaultCharset().newEncoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                List<? extends Paragraph<?, ?, ?>> paragraphs = document.getParagraphs();
+                int percent = 0;
+                for (int i = 0; i < paragraphs.size(); i++) {
+                    if (i != 0) encode(encoder, SEPARATOR.duplicate(), buffer, channel);
+                    encode(encoder, CharBuffer.wrap(paragraphs.get(i).getText()), buffer, channel);
+                    int current = (int) ((i + 1) * 100L / paragraphs.size());
+                    if (current != percent) progress.accept(percent = current);
+                }
+                encoder.encode(CharBuffer.allocate(0), buffer, true);
+                while (encoder.flush(buffer) == CoderResult.OVERFLOW) {
+                    drain(buffer, channel);
+                }
+                drain(buffer, channel);
+                channel.force(true);
+            }
+            copyAttributes(target, temp);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            moved = true;
+        } finally {
+            Files.deleteIfExists(temp);
+            if (created && !moved) Files.deleteIfExists(target);
+        }
+    }
+
+    //target of a dangling symbolic link, which is created when it's written to
+    private static Path resolveLinks(Path path) throws IOException {
+        Path result = path.toAbsolutePath();
+        for (int i = 0; Files.isSymbolicLink(result); i++) {
+            if (i == 40) throw new FileSystemException(path.toString(), null, "Too many levels of symbolic links");
+            result = result.resolveSibling(Files.readSymbolicLink(result));
+        }
+        return result;
+    }
+
+    //file replacing the target keeps its permissions, owner and ACL
+    private static void copyAttributes(Path from, Path to) throws IOException {
+        PosixFileAttributeView posix = Files.getFileAttributeView(to, PosixFileAttributeView.class);
+        if (posix != null) {
+            PosixFileAttributes attributes = Files.readAttributes(from, PosixFileAttributes.class);
+            posix.setPermissions(attributes.permissions());
+            //changing owner or group isn't allowed to everyone, file written by the user is owned by them anyway
+            try {
+                if (!attributes.group().equals(posix.readAttributes().group())) posix.setGroup(attributes.group());
+                if (!attributes.owner().equals(posix.getOwner())) posix.setOwner(attributes.owner());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        AclFileAttributeView acl = Files.getFileAttributeView(to, AclFileAttributeView.class);
+        if (acl != null) {
+            AclFileAttributeView source = Files.getFileAttributeView(from, AclFileAttributeView.class);
+            if (source != null) acl.setAcl(source.getAcl());
+        }
+    }
+
+    private static void encode(CharsetEncoder encoder, CharBuffer chars, ByteBuffer buffer, FileChannel channel) throws IOException {
+        while (encoder.encode(chars, buffer, false) == CoderResult.OVERFLOW) {
+            drain(buffer, channel);
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+}
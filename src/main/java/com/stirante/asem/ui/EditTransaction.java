@@ -0,0 +1,107 @@
+package com.stirante.asem.ui;
+
+import org.fxmisc.richtext.CodeArea;
+import org.fxmisc.richtext.MultiChangeBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Changes of the text collected and applied at once, as a single document change. It's undone in one step and the
+ * text listeners, including syntax analysis, see it only once, instead of once for every line. Offsets of all changes
+ * are in the text as it was before the transaction and changes have to be added from top to bottom.
+ */
+public class EditTransaction {
+    //replacing a chunk of text costs about as much per paragraph as a separate change of a multi change, so dense
+    //changes are applied as a single replacement of the text they span
+    private static final int MERGE_CHARS_PER_CHANGE = 256;
+
+    private final CodeArea area;
+    private final List<Change> changes = new ArrayList<>();
+    private boolean committed;
+
+    EditTransaction(CodeArea area) {
+        this.area = area;
+    }
+
+    public EditTransaction replace(int start, int end, String text) {
+        if (committed) throw new IllegalStateException("Transaction is already committed");
+        if (start > end || (!changes.isEmpty() && start < changes.get(changes.size() - 1).end))
+            throw new IllegalArgumentException("Changes have to be sorted and can't overlap");
+        if (start == end && text.isEmpty()) return this;
+        changes.add(new Change(start, end, text));
+        return this;
+    }
+
+    public EditTransaction insert(int position, String text) {
+        return replace(position, position, text);
+    }
+
+    public EditTransaction delete(int start, int end) {
+        return replace(start, end, "");
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    //offset in the text after the transaction, offset inside a replaced range stays within its new text
+    public int map(int offset) {
+        int delta = 0;
+        for (Change change : changes) {
+            if (offset < change.start) break;
+            if (offset < change.end) {
+                return change.start + delta + Math.min(offset - change.start, change.text.length());
+            }
+            delta += change.text.length() - (change.end - change.start);
+        }
+        return offset + delta;
+    }
+
+    //applies all changes, selection and caret are kept on the same text
+    public void commit() {
+        if (committed) throw new IllegalStateException("Transaction is already committed");
+        committed = true;
+        if (changes.isEmpty()) return;
+        int anchor = map(area.getAnchor());
+        int caret = map(area.getCaretPosition());
+        int from = changes.get(0).start;
+        int to = changes.get(changes.size() - 1).end;
+        if (changes.size() == 1) {
+            area.replaceText(from, to, changes.get(0).text);
+        } else if (to - from <= (long) changes.size() * MERGE_CHARS_PER_CHANGE) {
+            String old = area.getText(from, to);
+            StringBuilder sb = new StringBuilder(to - from);
+            int position = from;
+            for (Change change : changes) {
+                sb.append(old, position - from, change.start - from).append(change.text);
+                position = change.end;
+            }
+            area.replaceText(from, to, sb.toString());
+        } else {
+            //offsets of a multi change are in the text after the previous changes
+            MultiChangeBuilder<Collection<String>, String, Collection<String>> builder = area.createMultiChange(changes.size());
+            int delta = 0;
+            for (Change change : changes) {
+                builder.replaceTextAbsolutely(change.start + delta, change.end + delta, change.text);
+                delta += change.text.length() - (change.end - change.start);
+            }
+            builder.commit();
+        }
+        area.selectRange(anchor, caret);
+    }
+
+    private static class Change {
+        private final int start;
+        private final int end;
+        private final String text;
+
+        private Change(int start, int end, String text) {
+            this.start = start;
+            this.end = end;
+            this.text = text;
+        }
+    }
+
+}
@@ -17,6 +17,8 @@ public class FindDialog {
     @FXML
     public TextField findField;
     @FXML
+    public CheckBox regexBox;
+    @FXML
     public Label status;
     private VBox node;
     private Main app;
@@ -47,6 +49,10 @@ public class FindDialog {
 
         });
         dialog.getDialogPane().setContent(node);
+        //matches are highlighted only while the dialog is open
+        dialog.setOnHidden(event -> {
+            if (app.hasOpenTab()) app.getOpenTab().clearSearch();
+        });
         findField.requestFocus();
 
         dialog.show();
@@ -55,6 +61,6 @@ public class FindDialog {
     public void onAction() {
         if (!app.hasOpenTab()) return;
         if (findField.getText().isEmpty()) return;
-        status.setText(app.getOpenTab().find(findField.getText()));
+        app.getOpenTab().find(findField.getText(), regexBox.isSelected(), status::setText);
     }
 }
@@ -0,0 +1,49 @@
+package com.stirante.asem.ui;
+
+import com.stirante.asem.utils.LatencyHistogram;
+import com.stirante.asem.utils.Metrics;
+import com.stirante.asem.utils.TaskPool;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Label;
+import javafx.util.Duration;
+
+import java.util.Map;
+
+/**
+ * Live view of latency histograms and worker pool state, refreshed every second.
+ */
+public class MetricsDialog {
+
+    public static void show() {
+        Dialog<String> dialog = new Dialog<>();
+        dialog.setTitle("Metrics");
+        dialog.setHeaderText(null);
+        dialog.getDialogPane().getStylesheets().add(MetricsDialog.class.getResource("/style.css").toExternalForm());
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.OK);
+        Label l = new Label(getContent());
+        //monospaced font keeps columns aligned
+        l.getStyleClass().add("monospace");
+        dialog.getDialogPane().setContent(l);
+        Timeline refresh = new Timeline(new KeyFrame(Duration.seconds(1), event -> l.setText(getContent())));
+        refresh.setCycleCount(Animation.INDEFINITE);
+        refresh.play();
+        dialog.showAndWait();
+        refresh.stop();
+    }
+
+    private static String getContent() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-36s %8s %10s %10s %10s%n", "", "count", "p50 [ms]", "p99 [ms]", "max [ms]"));
+        for (Map.Entry<String, LatencyHistogram> entry : Metrics.getAll().entrySet()) {
+            LatencyHistogram h = entry.getValue();
+            sb.append(String.format("%-36s %8d %10.2f %10.2f %10.2f%n", entry.getKey(), h.getCount(), h.getP50(), h.getP99(), h.getMax()));
+        }
+        sb.append(String.format("%nWorker threads: %d active of %d, %d tasks waiting", TaskPool.getActiveThreads(), TaskPool.getMaxThreads(), TaskPool.getQueueDepth()));
+        return sb.toString();
+    }
+
+}
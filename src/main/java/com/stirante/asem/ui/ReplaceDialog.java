@@ -19,6 +19,8 @@ public class ReplaceDialog {
     @FXML
     public TextField replaceField;
     @FXML
+    public CheckBox regexBox;
+    @FXML
     public Label status;
     private VBox node;
     private Main app;
@@ -42,20 +44,31 @@ public class ReplaceDialog {
         dialog.setHeaderText(null);
         dialog.getDialogPane().getStylesheets().add(SegmentCreator.class.getResource("/style.css").toExternalForm());
         ButtonType replaceButton = new ButtonType("Replace", ButtonBar.ButtonData.OTHER);
-        dialog.getDialogPane().getButtonTypes().addAll(replaceButton, ButtonType.CANCEL);
+        ButtonType replaceAllButton = new ButtonType("Replace all", ButtonBar.ButtonData.OTHER);
+        dialog.getDialogPane().getButtonTypes().addAll(replaceButton, replaceAllButton, ButtonType.CANCEL);
         dialog.getDialogPane().lookupButton(replaceButton).addEventFilter(ActionEvent.ACTION, event -> {
             event.consume();
             if (!app.hasOpenTab()) return;
             if (findField.getText().isEmpty() || replaceField.getText().isEmpty()) return;
-            status.setText(app.getOpenTab().replace(findField.getText(), replaceField.getText()));
+            app.getOpenTab().replace(findField.getText(), replaceField.getText(), regexBox.isSelected(), status::setText);
+        });
+        dialog.getDialogPane().lookupButton(replaceAllButton).addEventFilter(ActionEvent.ACTION, event -> {
+            event.consume();
+            if (!app.hasOpenTab()) return;
+            if (findField.getText().isEmpty() || replaceField.getText().isEmpty()) return;
+            app.getOpenTab().replaceAll(findField.getText(), replaceField.getText(), regexBox.isSelected(), status::setText);
         });
         dialog.getDialogPane().setContent(node);
+        //matches are highlighted only while the dialog is open
+        dialog.setOnHidden(event -> {
+            if (app.hasOpenTab()) app.getOpenTab().clearSearch();
+        });
 
         dialog.show();
         if (initialText != null) return;
         if (!app.hasOpenTab()) return;
         if (findField.getText().isEmpty()) return;
-        status.setText(app.getOpenTab().find(findField.getText()));
+        app.getOpenTab().find(findField.getText(), regexBox.isSelected(), status::setText);
     }
 
 }
@@ -1,23 +1,29 @@
 package com.stirante.asem.ui.tooltip;
 
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
 
 /**
  * Created by stirante
  */
 public class DefaultTooltips implements TooltipContent {
-    private static ResourceBundle messages;
+    //messages by upper case keyword, copied from the bundle once
+    private static final Map<String, String> messages = new HashMap<>();
+    //formatted tooltip text by hovered word
+    private static final Map<String, String> texts = new HashMap<>();
     private static TooltipContent instance;
 
     static {
-        messages = ResourceBundle.getBundle("tooltips", Locale.ROOT);
+        ResourceBundle bundle = ResourceBundle.getBundle("tooltips", Locale.ROOT);
+        for (String key : bundle.keySet()) {
+            messages.put(key.toUpperCase(Locale.ROOT), bundle.getString(key));
+        }
     }
 
     private static String get(String key) {
-        if (messages.containsKey(key.toUpperCase()))
-            return messages.getString(key.toUpperCase());
-        return "";
+        return messages.getOrDefault(key.toUpperCase(Locale.ROOT), "");
     }
 
     public static TooltipContent getInstance() {
@@ -33,7 +39,7 @@ public class DefaultTooltips implements TooltipContent {
 
     @Override
     public String getTooltipText(String word, int index, int line) {
-        return word + ": " + get(word);
+        return texts.computeIfAbsent(word, w -> w + ": " + get(w));
     }
 
 }
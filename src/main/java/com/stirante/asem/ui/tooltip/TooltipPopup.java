@@ -1,5 +1,7 @@
 package com.stirante.asem.ui.tooltip;
 
+import com.stirante.asem.syntax.NumberParser;
+import com.stirante.asem.syntax.SyntaxAnalyzer;
 import com.stirante.asem.ui.CodeView;
 import javafx.geometry.Point2D;
 import javafx.scene.control.Label;
@@ -8,9 +10,6 @@ import org.fxmisc.richtext.CodeArea;
 import org.fxmisc.richtext.event.MouseOverTextEvent;
 import org.fxmisc.richtext.model.TwoDimensional;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Created by stirante
  */
@@ -19,7 +18,6 @@ public class TooltipPopup extends Popup {
     private final CodeView view;
     private final CodeArea codeArea;
     private final Label popupMsg;
-    private final List<TooltipContent> contents = new ArrayList<>();
 
     public TooltipPopup(CodeView view, CodeArea codeArea) {
         this.view = view;
@@ -45,23 +43,25 @@ public class TooltipPopup extends Popup {
             show(codeArea, pos.getX() + 15, pos.getY() + 15);
             return;
         }
-        for (TooltipContent content : getTooltips()) {
-            if (content.matches(s, chIdx, line)) {
-                popupMsg.setText(content.getTooltipText(s, chIdx, line));
-                show(codeArea, pos.getX() + 15, pos.getY() + 15);
-                return;
-            }
+        SyntaxAnalyzer.AnalysisResult analysis = view.getSyntaxAnalysis();
+        TooltipContent content = analysis.getTooltipAt(chIdx);
+        if (content != null) {
+            show(content.getTooltipText(s, chIdx, line), pos);
+            return;
+        }
+        int value = NumberParser.parse(s);
+        if (value != NumberParser.INVALID) {
+            show(value + "d, " + Integer.toHexString(value).toUpperCase() + "h, " + Integer.toBinaryString(value) + "b", pos);
+            return;
         }
+        TooltipContent symbol = analysis.getSymbols().getRoutine(s);
+        if (symbol == null) symbol = analysis.getSymbols().getField(s);
+        if (symbol != null) show(symbol.getTooltipText(s, chIdx, line), pos);
     }
 
-    private List<TooltipContent> getTooltips() {
-        List<TooltipContent> result = new ArrayList<>();
-        result.add(DefaultTooltips.getInstance());
-        result.addAll(view.getSyntaxAnalysis().getErrors());
-        result.addAll(view.getSyntaxAnalysis().getCollisions());
-        result.addAll(view.getSyntaxAnalysis().getRoutines());
-        result.addAll(view.getSyntaxAnalysis().getFields());
-        return result;
+    private void show(String text, Point2D pos) {
+        popupMsg.setText(text);
+        show(codeArea, pos.getX() + 15, pos.getY() + 15);
     }
 
 }
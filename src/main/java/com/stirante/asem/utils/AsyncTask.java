@@ -2,6 +2,9 @@ package com.stirante.asem.utils;
 
 import javafx.application.Platform;
 
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -11,12 +14,22 @@ public abstract class AsyncTask<P, T, R> {
 
     private final AtomicBoolean cancelled = new AtomicBoolean(false);
     private final AtomicBoolean done = new AtomicBoolean(false);
+    private final TaskPool.Priority priority;
+    private volatile Future<?> future;
+
+    public AsyncTask() {
+        this(TaskPool.Priority.ANALYSIS);
+    }
+
+    public AsyncTask(TaskPool.Priority priority) {
+        this.priority = priority;
+    }
 
     @SafeVarargs
     public final void execute(P... params) {
         done.set(false);
         cancelled.set(false);
-        new Thread(() -> {
+        future = TaskPool.submit(priority, () -> {
             R result = doInBackground(params);
             done.set(true);
             if (!isCancelled()) {
@@ -25,7 +38,7 @@ public abstract class AsyncTask<P, T, R> {
             if (isCancelled()) {
                 Platform.runLater(this::onCancel);
             }
-        }).start();
+        });
     }
 
     public void onProgress(T progress) {
@@ -54,8 +67,22 @@ public abstract class AsyncTask<P, T, R> {
         return done.get();
     }
 
+    //blocks until background part of the task is finished, callbacks on FX application thread may still be pending
+    public void await() {
+        Future<?> f = future;
+        if (f == null) return;
+        try {
+            f.get();
+        } catch (InterruptedException | ExecutionException | CancellationException e) {
+            e.printStackTrace();
+        }
+    }
+
+    //running task is interrupted, waiting one won't start at all
     public void cancel() {
         cancelled.set(true);
+        Future<?> f = future;
+        if (f != null) f.cancel(true);
     }
 
 }
@@ -3,59 +3,101 @@ package com.stirante.asem.utils;
 import org.fxmisc.richtext.model.StyleSpans;
 import org.fxmisc.richtext.model.StyleSpansBuilder;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
 
 /**
- * Created by stirante
+ * Builds style spans from overlapping style regions. Region boundaries are sorted once and swept from left to right,
+ * so the cost depends on number of regions instead of text length times number of regions. Every distinct set of
+ * styles is represented by a single immutable list shared between spans. Supports at most 64 different styles.
  */
 public class BetterSpanBuilder {
 
-    private final List<SingleStyleRange> regions = new ArrayList<>();
+    private final Map<String, Integer> styleIds = new HashMap<>();
+    private final List<String> styleNames = new ArrayList<>();
+    private final Map<Long, List<String>> styleSets = new HashMap<>();
+    //packed boundaries: position in upper 32 bits, style id and 1 for region start in lower bits
+    private long[] boundaries = new long[64];
+    private int size;
 
     public void addStyle(String style, int start, int end) {
-        regions.add(new SingleStyleRange(start, end, style));
+        if (start >= end) return;
+        Integer id = styleIds.get(style);
+        if (id == null) {
+            if (styleNames.size() == 64) throw new IllegalStateException("Too many different styles");
+            id = styleNames.size();
+            styleIds.put(style, id);
+            styleNames.add(style);
+        }
+        if (size + 2 > boundaries.length) boundaries = Arrays.copyOf(boundaries, boundaries.length * 2);
+        boundaries[size++] = ((long) Math.max(start, 0) << 32) | (id << 1) | 1;
+        boundaries[size++] = ((long) Math.max(end, 0) << 32) | (id << 1);
     }
 
     public StyleSpans<Collection<String>> createStyleSpans(String str) {
+        return createStyleSpans(str.length());
+    }
+
+    public StyleSpans<Collection<String>> createStyleSpans(int length) {
+        long time = System.nanoTime();
         StyleSpansBuilder<Collection<String>> spansBuilder = new StyleSpansBuilder<>();
-        List<String> styles = new ArrayList<>();
-        List<String> temp = new ArrayList<>();
-        int start = 0;
-        for (int i = 0; i < str.length(); i++) {
-            temp.clear();
-            for (SingleStyleRange region : regions) {
-                if (region.contains(i)) temp.add(region.getStyle());
-            }
-            if (!styles.containsAll(temp) || !temp.containsAll(styles)) {
-                spansBuilder.add(styles, i - start);
-                styles = new ArrayList<>(temp);
-                start = i;
-            }
-        }
-        spansBuilder.add(styles, str.length() - start);
-        return spansBuilder.create();
+        sweep(length, (styles, start, end) -> spansBuilder.add(styles, end - start));
+        StyleSpans<Collection<String>> spans = spansBuilder.create();
+        Metrics.get(Metrics.STYLE_SPANS).recordSince(time);
+        return spans;
     }
 
     public List<StylizedRange> createStylizedRanges(String str) {
         List<StylizedRange> result = new ArrayList<>();
-        List<String> styles = new ArrayList<>();
-        List<String> temp = new ArrayList<>();
-        int start = 0;
-        for (int i = 0; i < str.length(); i++) {
-            temp.clear();
-            for (SingleStyleRange region : regions) {
-                if (region.contains(i)) temp.add(region.getStyle());
+        sweep(str.length(), (styles, start, end) -> result.add(new StylizedRange(styles, start, end)));
+        return result;
+    }
+
+    //reports ranges with the same styles covering whole text, there is at least one range even for empty text
+    private void sweep(int length, RangeConsumer consumer) {
+        long[] sorted = Arrays.copyOf(boundaries, size);
+        Arrays.sort(sorted);
+        int[] counts = new int[styleNames.size()];
+        long active = 0;
+        int spanStart = 0;
+        int i = 0;
+        while (i < sorted.length) {
+            int position = (int) (sorted[i] >>> 32);
+            if (position >= length) break;
+            long previous = active;
+            //apply all boundaries at this position before comparing, so touching regions don't produce empty spans
+            while (i < sorted.length && (int) (sorted[i] >>> 32) == position) {
+                int id = (int) (sorted[i] & 0xFFFFFFFFL) >> 1;
+                if ((sorted[i] & 1) == 1) {
+                    if (counts[id]++ == 0) active |= 1L << id;
+                } else {
+                    if (--counts[id] == 0) active &= ~(1L << id);
+                }
+                i++;
             }
-            if (!styles.containsAll(temp) || !temp.containsAll(styles)) {
-                result.add(new StylizedRange(styles, start, i));
-                styles = new ArrayList<>(temp);
-                start = i;
+            if (active != previous) {
+                if (position > spanStart) consumer.accept(getStyles(previous), spanStart, position);
+                spanStart = position;
             }
         }
-        result.add(new StylizedRange(styles, start, str.length()));
-        return result;
+        consumer.accept(getStyles(active), spanStart, length);
+    }
+
+    private List<String> getStyles(long set) {
+        if (set == 0) return Collections.emptyList();
+        List<String> styles = styleSets.get(set);
+        if (styles == null) {
+            List<String> list = new ArrayList<>(Long.bitCount(set));
+            for (int id = 0; id < styleNames.size(); id++) {
+                if ((set & (1L << id)) != 0) list.add(styleNames.get(id));
+            }
+            styles = Collections.unmodifiableList(list);
+            styleSets.put(set, styles);
+        }
+        return styles;
+    }
+
+    private interface RangeConsumer {
+        void accept(List<String> styles, int start, int end);
     }
 
     public class StylizedRange extends TextRange {
@@ -63,26 +105,12 @@ public class BetterSpanBuilder {
             return styles;
         }
 
-        private final List<String> styles = new ArrayList<>();
+        private final List<String> styles;
 
         public StylizedRange(List<String> styles, int start, int end) {
             super(start, end);
-            this.styles.addAll(styles);
-        }
-    }
-
-    class SingleStyleRange extends TextRange {
-        private final String style;
-
-        public SingleStyleRange(int start, int end, String style) {
-            super(start, end);
-            this.style = style;
+            this.styles = styles;
         }
-
-        public String getStyle() {
-            return style;
-        }
-
     }
 
 }
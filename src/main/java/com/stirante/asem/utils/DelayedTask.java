@@ -1,39 +1,52 @@
 package com.stirante.asem.utils;
 
-import java.util.concurrent.atomic.AtomicLong;
+import javafx.application.Platform;
 
-public class DelayedTask extends AsyncTask<Void, Void, Void> {
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+/**
+ * Runs runnable on FX application thread after delay. Starting it again before the delay passed reschedules the pending
+ * run, so only the last one is executed. All delayed tasks share a single timer thread and don't occupy any worker
+ * while waiting.
+ */
+public class DelayedTask {
 
     private final long delay;
-    private Runnable runnable;
-    private AtomicLong startTime = new AtomicLong(System.currentTimeMillis());
+    //thread start and cancel are called on, FX application thread outside of tests
+    private final Executor thread;
+    private final Timer timer;
+    private Future<?> pending;
+    //incremented by every start, timer which fires after being replaced is ignored
+    private long generation;
 
     public DelayedTask(long delay) {
+        this(delay, Platform::runLater, TaskPool::schedule);
+    }
+
+    DelayedTask(long delay, Executor thread, Timer timer) {
         this.delay = delay;
+        this.thread = thread;
+        this.timer = timer;
     }
 
+    //has to be called on FX application thread
     public void start(Runnable r) {
-        startTime.set(System.currentTimeMillis());
-        this.runnable = r;
-        execute();
+        if (pending != null) pending.cancel(false);
+        long current = ++generation;
+        pending = timer.schedule(() -> thread.execute(() -> {
+            if (current == generation) r.run();
+        }), delay);
     }
 
-    @Override
-    public Void doInBackground(Void[] params) {
-        long timeToWait = delay - (System.currentTimeMillis() - startTime.get());
-        while (timeToWait > 0) {
-            try {
-                Thread.sleep(timeToWait);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-            timeToWait = delay - (System.currentTimeMillis() - startTime.get());
-        }
-        return null;
+    public void cancel() {
+        if (pending != null) pending.cancel(false);
+        generation++;
     }
 
-    @Override
-    public void onPostExecute(Void result) {
-        runnable.run();
+    //runs runnable after delay in milliseconds, TaskPool.schedule outside of tests
+    interface Timer {
+        Future<?> schedule(Runnable runnable, long delay);
     }
+
 }
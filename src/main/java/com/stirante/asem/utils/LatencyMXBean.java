@@ -0,0 +1,20 @@
+package com.stirante.asem.utils;
+
+/**
+ * JMX view of a single {@link LatencyHistogram}. All times are in milliseconds.
+ */
+public interface LatencyMXBean {
+
+    long getCount();
+
+    double getP50();
+
+    double getP99();
+
+    double getMax();
+
+    double getMean();
+
+    void reset();
+
+}
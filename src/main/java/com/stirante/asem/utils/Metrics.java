@@ -0,0 +1,64 @@
+package com.stirante.asem.utils;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named latency histograms of the editor hot paths. Every histogram is also registered as MXBean under
+ * com.stirante.asem:type=Latency, so it can be watched with JConsole or any other JMX client.
+ */
+public class Metrics {
+    public static final String ANALYSIS = "Analysis";
+    public static final String HIGHLIGHT = "Highlighting";
+    public static final String STYLE_SPANS = "Style spans";
+    public static final String STYLE_APPLY = "Style application";
+    public static final String COMPILE = "Compilation";
+    public static final String LOAD = "File load";
+    public static final String SAVE = "File save";
+    public static final String SEARCH = "Search";
+    //read without locking on every recorded sample, only registration and removal are synchronized
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    public static LatencyHistogram get(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        return histogram != null ? histogram : register(name);
+    }
+
+    private static synchronized LatencyHistogram register(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            histograms.put(name, histogram);
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                server.registerMBean(histogram, objectName(name));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        return histogram;
+    }
+
+    public static synchronized void remove(String name) {
+        if (histograms.remove(name) == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(name));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    //copy of all histograms sorted by name
+    public static Map<String, LatencyHistogram> getAll() {
+        return new TreeMap<>(histograms);
+    }
+
+    private static ObjectName objectName(String name) throws Exception {
+        return new ObjectName("com.stirante.asem:type=Latency,name=" + ObjectName.quote(name));
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.stirante.asem.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable set of text ranges with values, which finds range containing an offset by binary search. Ranges are sorted
+ * by start and every one of them knows the maximal end of ranges up to it, so only ranges, which could still contain
+ * the offset, are checked. When ranges overlap, value of the one added first is returned.
+ */
+public class RangeIndex<T> {
+
+    private final int[] starts;
+    private final int[] ends;
+    //maximal end of ranges from the first one to this one
+    private final int[] maxEnds;
+    //position in which range was added
+    private final int[] order;
+    private final Object[] values;
+
+    private RangeIndex(List<Range> ranges) {
+        int size = ranges.size();
+        Range[] sorted = ranges.toArray(new Range[0]);
+        Arrays.sort(sorted, (a, b) -> Integer.compare(a.start, b.start));
+        starts = new int[size];
+        ends = new int[size];
+        maxEnds = new int[size];
+        order = new int[size];
+        values = new Object[size];
+        int maxEnd = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            Range range = sorted[i];
+            starts[i] = range.start;
+            ends[i] = range.end;
+            maxEnd = Math.max(maxEnd, range.end);
+            maxEnds[i] = maxEnd;
+            order[i] = range.order;
+            values[i] = range.value;
+        }
+    }
+
+    //value of the first added range, which contains offset, or null
+    @SuppressWarnings("unchecked")
+    public T get(int offset) {
+        //last range starting at or before offset
+        int low = 0;
+        int high = starts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= offset) low = mid + 1;
+            else high = mid;
+        }
+        int found = -1;
+        for (int i = low - 1; i >= 0 && maxEnds[i] > offset; i--) {
+            if (ends[i] > offset && (found == -1 || order[i] < order[found])) found = i;
+        }
+        return found == -1 ? null : (T) values[found];
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    public static class Builder<T> {
+        private final List<Range> ranges = new ArrayList<>();
+
+        //range from start inclusive to end exclusive, empty ranges are skipped
+        public Builder<T> add(int start, int end, T value) {
+            if (start < end) ranges.add(new Range(start, end, ranges.size(), value));
+            return this;
+        }
+
+        public RangeIndex<T> build() {
+            return new RangeIndex<>(ranges);
+        }
+    }
+
+    private static class Range {
+        private final int start;
+        private final int end;
+        private final int order;
+        private final Object value;
+
+        private Range(int start, int end, int order, Object value) {
+            this.start = start;
+            this.end = end;
+            this.order = order;
+            this.value = value;
+        }
+    }
+
+}
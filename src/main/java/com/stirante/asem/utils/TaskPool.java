@@ -0,0 +1,93 @@
+package com.stirante.asem.utils;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared pool of daemon worker threads for all background work of the application. Waiting tasks are ordered by
+ * priority and then by submission order, so highlighting of the visible text isn't stuck behind file or network I/O.
+ */
+public class TaskPool {
+
+    public enum Priority {
+        //work user waits for to see result of the last action, like highlighting
+        UI_CRITICAL,
+        ANALYSIS,
+        //file, process and network operations
+        IO
+    }
+
+    private static final AtomicLong sequence = new AtomicLong();
+    private static final AtomicInteger threadNumber = new AtomicInteger();
+    private static final int THREADS = Math.max(3, Runtime.getRuntime().availableProcessors());
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS, new PriorityBlockingQueue<>(), r -> {
+        Thread thread = new Thread(r, "Worker #" + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    //single timer thread for delayed work, scheduled runnables should only hand the work over
+    private static final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "Scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        executor.allowCoreThreadTimeOut(true);
+        //rescheduled debounces would otherwise stay in the queue until their original time
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    //cancelling returned future with interruption stops running task
+    public static Future<?> submit(Priority priority, Runnable runnable) {
+        PriorityTask task = new PriorityTask(() -> {
+            //future keeps the exception only for get(), which most callers never call
+            try {
+                runnable.run();
+            } catch (Throwable t) {
+                t.printStackTrace();
+                throw t;
+            }
+        }, priority);
+        executor.execute(task);
+        return task;
+    }
+
+    //runs runnable on the timer thread after delay, it must be short
+    public static ScheduledFuture<?> schedule(Runnable runnable, long delay) {
+        return scheduler.schedule(runnable, delay, TimeUnit.MILLISECONDS);
+    }
+
+    //number of tasks waiting for a free thread
+    public static int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    //number of threads currently running a task
+    public static int getActiveThreads() {
+        return executor.getActiveCount();
+    }
+
+    public static int getMaxThreads() {
+        return THREADS;
+    }
+
+    private static class PriorityTask extends FutureTask<Void> implements Comparable<PriorityTask> {
+        private final Priority priority;
+        private final long order = sequence.getAndIncrement();
+
+        private PriorityTask(Runnable runnable, Priority priority) {
+            super(runnable, null);
+            this.priority = priority;
+        }
+
+        @Override
+        public int compareTo(PriorityTask o) {
+            int result = priority.compareTo(o.priority);
+            return result != 0 ? result : Long.compare(order, o.order);
+        }
+    }
+
+}
@@ -0,0 +1,209 @@
+package com.stirante.asem.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Case insensitive search of all occurrences of a text or regular expression. Plain text is searched with
+ * Boyer-Moore-Horspool algorithm, regular expressions are compiled once and kept in a small cache, since the same
+ * expression is usually searched many times in a row. Instances are immutable and can be used from any thread.
+ */
+public class TextSearch {
+    private static final int CACHE_SIZE = 16;
+    //shift table is indexed by lower byte of folded char, chars sharing it get the smallest shift, which is still correct
+    private static final int TABLE_SIZE = 256;
+
+    private static final Map<String, Pattern> patterns = new LinkedHashMap<String, Pattern>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final String query;
+    private final Pattern pattern;
+    private final char[] needle;
+    private final int[] shift;
+
+    //throws PatternSyntaxException when regex is true and query isn't a valid expression
+    public TextSearch(String query, boolean regex) {
+        this.query = query;
+        if (regex) {
+            pattern = compile(query);
+            needle = null;
+            shift = null;
+        } else {
+            pattern = null;
+            needle = new char[query.length()];
+            for (int i = 0; i < needle.length; i++) {
+                needle[i] = fold(query.charAt(i));
+            }
+            shift = new int[TABLE_SIZE];
+            for (int i = 0; i < TABLE_SIZE; i++) {
+                shift[i] = needle.length;
+            }
+            for (int i = 0; i < needle.length - 1; i++) {
+                shift[needle[i] & (TABLE_SIZE - 1)] = needle.length - 1 - i;
+            }
+        }
+    }
+
+    private static Pattern compile(String regex) {
+        synchronized (patterns) {
+            Pattern pattern = patterns.get(regex);
+            if (pattern == null) {
+                pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.MULTILINE);
+                patterns.put(regex, pattern);
+            }
+            return pattern;
+        }
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public boolean isRegex() {
+        return pattern != null;
+    }
+
+    //all non overlapping matches sorted by start
+    public List<TextRange> findAll(CharSequence text) {
+        List<TextRange> result = new ArrayList<>();
+        if (pattern != null) {
+            Matcher matcher = pattern.matcher(text);
+            while (matcher.find()) {
+                //empty matches, like ^, can't be selected or replaced in a meaningful way
+                if (matcher.end() > matcher.start()) result.add(new TextRange(matcher.start(), matcher.end()));
+            }
+            return result;
+        }
+        int m = needle.length;
+        if (m == 0) return Collections.emptyList();
+        int last = m - 1;
+        int i = 0;
+        while (i <= text.length() - m) {
+            char c = fold(text.charAt(i + last));
+            if (c == needle[last] && matchesAt(text, i)) {
+                result.add(new TextRange(i, i + m));
+                i += m;
+            } else {
+                i += shift[c & (TABLE_SIZE - 1)];
+            }
+        }
+        return result;
+    }
+
+    private boolean matchesAt(CharSequence text, int i) {
+        for (int j = needle.length - 2; j >= 0; j--) {
+            if (fold(text.charAt(i + j)) != needle[j]) return false;
+        }
+        return true;
+    }
+
+    //replacement of the match found in text, groups like $1 can be used in regular expressions
+    public String replace(CharSequence text, TextRange match, String replacement) {
+        if (pattern == null) return replacement;
+        //matcher sees text around the match, so anchors and lookarounds work the same as in findAll
+        Matcher matcher = pattern.matcher(text)
+                .region(match.getStart(), text.length())
+                .useTransparentBounds(true)
+                .useAnchoringBounds(false);
+        if (!matcher.lookingAt() || matcher.end() != match.getEnd()) return replacement;
+        return expand(matcher, replacement);
+    }
+
+    //replacement with group references expanded for the current match, same syntax as in Matcher.appendReplacement:
+    //$1, ${name} and \ escaping the next char; unlike appendReplacement, text before the match isn't copied
+    private static String expand(Matcher matcher, String replacement) {
+        StringBuilder sb = new StringBuilder(replacement.length());
+        int i = 0;
+        while (i < replacement.length()) {
+            char c = replacement.charAt(i++);
+            if (c == '\\') {
+                if (i == replacement.length()) throw new IllegalArgumentException("character to be escaped is missing");
+                sb.append(replacement.charAt(i++));
+            } else if (c == '$') {
+                if (i == replacement.length()) throw new IllegalArgumentException("Illegal group reference: group index is missing");
+                String group;
+                if (replacement.charAt(i) == '{') {
+                    int end = replacement.indexOf('}', ++i);
+                    if (end == -1) throw new IllegalArgumentException("named capturing group is missing trailing '}'");
+                    if (end == i) throw new IllegalArgumentException("named capturing group has 0 length name");
+                    group = matcher.group(replacement.substring(i, end));
+                    i = end + 1;
+                } else {
+                    int ref = replacement.charAt(i++) - '0';
+                    if (ref < 0 || ref > 9) throw new IllegalArgumentException("Illegal group reference");
+                    //the longest number, which is still a group
+                    while (i < replacement.length()) {
+                        int digit = replacement.charAt(i) - '0';
+                        if (digit < 0 || digit > 9 || ref * 10 + digit > matcher.groupCount()) break;
+                        ref = ref * 10 + digit;
+                        i++;
+                    }
+                    group = matcher.group(ref);
+                }
+                if (group != null) sb.append(group);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    //replacements of all matches sorted by start, to be applied at once
+    public List<Replacement> replaceAll(String text, String replacement) {
+        List<Replacement> result = new ArrayList<>();
+        if (pattern != null) {
+            //same sequence of matches as in findAll, so group references can be expanded for each of them
+            Matcher matcher = pattern.matcher(text);
+            while (matcher.find()) {
+                if (matcher.end() == matcher.start()) continue;
+                result.add(new Replacement(matcher.start(), matcher.end(), expand(matcher, replacement)));
+            }
+            return result;
+        }
+        for (TextRange match : findAll(text)) {
+            result.add(new Replacement(match.getStart(), match.getEnd(), replacement));
+        }
+        return result;
+    }
+
+    public static class Replacement {
+        private final int from;
+        private final int to;
+        private final String text;
+
+        private Replacement(int from, int to, String text) {
+            this.from = from;
+            this.to = to;
+            this.text = text;
+        }
+
+        //start of the match
+        public int getFrom() {
+            return from;
+        }
+
+        //end of the match, exclusive
+        public int getTo() {
+            return to;
+        }
+
+        //text replacing the match
+        public String getText() {
+            return text;
+        }
+    }
+
+}
@@ -25,7 +25,7 @@ public class UpdateUtil {
     public static void check(Main app) {
         if (!Settings.getInstance().isCheckingUpdate()) return;
         double[] remote = new double[1];
-        new AsyncTask<Void, Void, Void>() {
+        new AsyncTask<Void, Void, Void>(TaskPool.Priority.IO) {
 
             @Override
             public Void doInBackground(Void[] params) {
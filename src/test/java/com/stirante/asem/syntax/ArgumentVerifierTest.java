@@ -0,0 +1,47 @@
+package com.stirante.asem.syntax;
+
+import com.stirante.asem.Constants;
+import com.stirante.asem.syntax.code.CodeErrorElement;
+import com.stirante.asem.syntax.code.FieldElement;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ArgumentVerifierTest {
+
+    //template shown in every new file has to be valid
+    @Test
+    public void newFileTemplateHasNoErrors() {
+        for (CodeErrorElement error : SyntaxAnalyzer.analyze(Constants.NEW_TEMPLATE).getErrors()) {
+            fail("Error in line " + error.getDefinitionLine() + ": " + error.getDescription());
+        }
+    }
+
+    //values wider than the operand are left for the assembler, like in the template
+    @Test
+    public void numbersAreNotRangeChecked() {
+        assertTrue(SyntaxAnalyzer.analyze("MOV R0,#0ff80h\nMOV 1FFh,A").getErrors().isEmpty());
+    }
+
+    @Test
+    public void invalidNumbersAreErrors() {
+        assertTrue(!SyntaxAnalyzer.analyze("MOV R0,#0fgh").getErrors().isEmpty());
+    }
+
+    //only lower half of IDATA is directly addressable, unknown address isn't assumed to be there
+    @Test
+    public void directAddressAcceptsOnlyKnownLowIdata() {
+        assertTrue(ArgumentVerifier.Type.IRAM_ADDR.accepts(idata("30h")));
+        assertFalse(ArgumentVerifier.Type.IRAM_ADDR.accepts(idata("080h")));
+        assertFalse(ArgumentVerifier.Type.IRAM_ADDR.accepts(idata("0C0h")));
+        assertFalse(ArgumentVerifier.Type.IRAM_ADDR.accepts(idata("BUFFER+1")));
+        assertFalse(ArgumentVerifier.Type.IRAM_ADDR.accepts(idata("0fgh")));
+    }
+
+    private static FieldElement idata(String value) {
+        return new FieldElement(0, 0, 0, "X", "IDATA", value, null);
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.stirante.asem.syntax;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class CompletionIndexTest {
+
+    private static final CompletionIndex INDEX = new CompletionIndex(
+            new String[]{"LCD_INIT", "lcdInit", "LIMIT", "DELAY", "SLOW_INC"}, CompletionIndex.Kind.ROUTINE);
+
+    private static List<String> find(String word) {
+        List<CompletionIndex.Suggestion> found = new ArrayList<>();
+        INDEX.find(word, found);
+        CompletionIndex.sort(found);
+        List<String> result = new ArrayList<>();
+        for (CompletionIndex.Suggestion suggestion : found) {
+            result.add(suggestion.getName() + ":" + suggestion.getMatch());
+        }
+        return result;
+    }
+
+    @Test
+    public void prefixThenCamelHumpsThenFuzzy() {
+        //SLOW_INC contains L and I in order, but its L isn't at a start of a hump
+        assertEquals("[LIMIT:PREFIX, lcdInit:CAMEL_HUMP, LCD_INIT:CAMEL_HUMP, SLOW_INC:FUZZY]", find("LI").toString());
+    }
+
+    @Test
+    public void namesWithoutAllCharsAreNotFound() {
+        assertEquals("[]", find("LX").toString());
+        assertEquals("[DELAY:PREFIX]", find("dela").toString());
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.stirante.asem.syntax;
+
+import org.fxmisc.richtext.model.PlainTextChange;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class IncrementalAnalyzerTest {
+
+    private static final String SOURCE = "COUNTER DATA 30h\n\tNOP\nLOOP:\n\tINC COUNTER\n\tSJMP LOOP\n";
+
+    private IncrementalAnalyzer analyzer;
+    private String text;
+
+    @Before
+    public void setUp() {
+        analyzer = new IncrementalAnalyzer();
+        text = SOURCE;
+        analyzer.reset(text);
+    }
+
+    private void replace(int start, int end, String inserted) {
+        analyzer.applyChange(new PlainTextChange(start, text.substring(start, end), inserted));
+        text = text.substring(0, start) + inserted + text.substring(end);
+    }
+
+    private static List<String> names(SymbolIndex symbols) {
+        List<String> result = new ArrayList<>();
+        List<CompletionIndex.Suggestion> found = new ArrayList<>();
+        symbols.getCompletions().find("", found);
+        for (CompletionIndex.Suggestion suggestion : found) {
+            result.add(suggestion.getName());
+        }
+        return result;
+    }
+
+    @Test
+    public void completionsAreReusedWhenSymbolsDidNotChange() {
+        SymbolIndex before = analyzer.getResult().getSymbols();
+        //end of the line above the label, so no line defining a symbol is touched, but the label moves
+        int position = text.indexOf("\tNOP") + 4;
+        replace(position, position, "\n\tNOP");
+        SymbolIndex after = analyzer.getResult().getSymbols();
+        assertSame(before.getCompletions(), after.getCompletions());
+        //positions still come from the current text
+        assertEquals(text.indexOf("LOOP:"), after.get("loop").getDefinitionStart());
+        assertEquals(after.get("LOOP"), after.getByPrefix("LO").get(0));
+    }
+
+    @Test
+    public void completionsAreRebuiltWhenSymbolChanged() {
+        SymbolIndex before = analyzer.getResult().getSymbols();
+        int position = text.indexOf("LOOP:");
+        replace(position, position + 4, "AGAIN");
+        SymbolIndex after = analyzer.getResult().getSymbols();
+        assertNotSame(before.getCompletions(), after.getCompletions());
+        assertEquals(names(SyntaxAnalyzer.analyze(text).getSymbols()), names(after));
+    }
+
+    @Test
+    public void resultMatchesFullAnalysisAfterEdits() {
+        replace(0, 0, "FLAG BIT 20h.0\n");
+        analyzer.getResult();
+        int position = text.indexOf("\tINC");
+        replace(position, position, "\tSETB FLAG\n");
+        SymbolIndex symbols = analyzer.getResult().getSymbols();
+        assertEquals(names(SyntaxAnalyzer.analyze(text).getSymbols()), names(symbols));
+        assertEquals(text.indexOf("COUNTER"), symbols.get("COUNTER").getDefinitionStart());
+        assertEquals(text.indexOf("LOOP"), symbols.get("LOOP").getDefinitionStart());
+    }
+
+}
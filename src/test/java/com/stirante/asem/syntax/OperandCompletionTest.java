@@ -0,0 +1,64 @@
+package com.stirante.asem.syntax;
+
+import com.stirante.asem.syntax.code.FieldElement;
+import com.stirante.asem.syntax.code.RoutineElement;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OperandCompletionTest {
+
+    private static final SymbolIndex SYMBOLS = new SymbolIndex(Arrays.asList(
+            field("BUFFER", "IDATA", "30h"),
+            field("STACK", "IDATA", "0C0h"),
+            field("COUNTER", "DATA", "20h"),
+            field("LIMIT", "EQU", "10"),
+            field("FLAG", "BIT", "20h.0"),
+            field("TABLE", "CODE", "100h")
+    ), Collections.<RoutineElement>emptyList());
+
+    private static FieldElement field(String name, String type, String value) {
+        return new FieldElement(0, 0, 0, name, type, value, null);
+    }
+
+    private static List<String> suggest(String line) {
+        List<String> result = new ArrayList<>();
+        for (CompletionIndex.Suggestion suggestion : OperandCompletion.at(line).find(SYMBOLS)) {
+            result.add(suggestion.getText());
+        }
+        return result;
+    }
+
+    @Test
+    public void directAddressSuggestsAddressSymbols() {
+        List<String> suggestions = suggest("MOV A,");
+        assertTrue(suggestions.toString(), suggestions.containsAll(Arrays.asList("BUFFER", "COUNTER", "LIMIT", "#LIMIT", "ACC")));
+        //indirectly addressed RAM, bits and code aren't direct addresses
+        assertFalse(suggestions.contains("STACK"));
+        assertFalse(suggestions.contains("FLAG"));
+        assertFalse(suggestions.contains("TABLE"));
+    }
+
+    @Test
+    public void suggestionsAreAcceptedByVerifier() {
+        for (String suggestion : suggest("MOV A,")) {
+            assertEquals(suggestion, ArgumentVerifier.MatchType.MATCH, ArgumentVerifier.checkStatus("MOV", "A," + suggestion, SYMBOLS));
+        }
+    }
+
+    @Test
+    public void bitOperandSuggestsOnlyBits() {
+        List<String> suggestions = suggest("SETB ");
+        assertTrue(suggestions.contains("FLAG"));
+        assertFalse(suggestions.contains("COUNTER"));
+        assertFalse(suggestions.contains("BUFFER"));
+    }
+
+}
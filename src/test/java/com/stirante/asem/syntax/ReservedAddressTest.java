@@ -0,0 +1,57 @@
+package com.stirante.asem.syntax;
+
+import com.stirante.asem.syntax.code.CodeCollisionElement;
+import com.stirante.asem.syntax.code.ReservedAddressCollisionElement;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ReservedAddressTest {
+
+    private static List<String[]> readEntries() throws IOException {
+        List<String[]> entries = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(ReservedAddressTest.class.getResourceAsStream("/reserved_addresses.csv")))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("#") || line.trim().isEmpty()) continue;
+                entries.add(line.split(","));
+            }
+        }
+        return entries;
+    }
+
+    //every address from reserved_addresses.csv gives a warning for DATA field defined at it
+    @Test
+    public void everyReservedAddressIsLoaded() throws IOException {
+        List<String[]> entries = readEntries();
+        assertTrue(entries.size() > 0);
+        for (String[] entry : entries) {
+            //leading zero makes it a valid literal, like 0A0h
+            String source = "X DATA 0" + entry[1];
+            ReservedAddressCollisionElement found = null;
+            for (CodeCollisionElement collision : SyntaxAnalyzer.analyze(source).getCollisions()) {
+                if (collision instanceof ReservedAddressCollisionElement) found = (ReservedAddressCollisionElement) collision;
+            }
+            if (found == null) fail("No warning for " + entry[0] + " at " + entry[1]);
+            assertEquals(entry[0], found.getName());
+        }
+    }
+
+    @Test
+    public void accumulatorAddressIsReserved() {
+        boolean found = false;
+        for (CodeCollisionElement collision : SyntaxAnalyzer.analyze("X DATA 0E0h").getCollisions()) {
+            found |= collision instanceof ReservedAddressCollisionElement && collision.getAddress() == 0xE0;
+        }
+        assertTrue(found);
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.stirante.asem.ui;
+
+import com.stirante.asem.utils.TextRange;
+import org.fxmisc.richtext.model.PlainTextChange;
+import org.fxmisc.richtext.model.ReadOnlyStyledDocument;
+import org.fxmisc.richtext.model.SegmentOps;
+import org.fxmisc.richtext.model.SimpleEditableStyledDocument;
+import org.fxmisc.undo.UndoManager;
+import org.fxmisc.undo.UndoManagerFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChangeTrackerTest {
+
+    private SimpleEditableStyledDocument<String, String> document;
+    private UndoManager<PlainTextChange> undoManager;
+    private ChangeTracker tracker;
+
+    @Before
+    public void setUp() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append("\tMOV A,#").append(i % 256).append("\n");
+        }
+        document = new SimpleEditableStyledDocument<>(fromString(sb.toString()));
+        undoManager = UndoManagerFactory.zeroHistorySingleChangeUM(document.plainChanges());
+        tracker = new ChangeTracker(document, undoManager);
+    }
+
+    private static ReadOnlyStyledDocument<String, String, String> fromString(String text) {
+        return ReadOnlyStyledDocument.fromString(text, "", "", SegmentOps.<String>styledTextOps());
+    }
+
+    private void replace(int start, int end, String text) {
+        document.replace(start, end, fromString(text));
+    }
+
+    private static int length(TextRange range) {
+        return range.getEnd() - range.getStart();
+    }
+
+    @Test
+    public void loadedTextIsNotCompared() {
+        assertFalse(tracker.isChanged());
+        assertEquals(0, length(tracker.getComparedRange()));
+    }
+
+    @Test
+    public void onlyEditedSpanIsCompared() {
+        replace(1, 4, "INC");
+        assertEquals(1, tracker.getComparedRange().getStart());
+        assertEquals(3, length(tracker.getComparedRange()));
+        assertTrue(tracker.isChanged());
+        replace(1, 4, "MOV");
+        assertFalse(tracker.isChanged());
+        //same text as saved, so nothing is compared after the next edit either
+        assertEquals(0, length(tracker.getComparedRange()));
+        replace(20, 21, "B");
+        assertEquals(1, length(tracker.getComparedRange()));
+    }
+
+    @Test
+    public void comparedSpanNarrowsToDifference() {
+        //edits at both ends, then the one at the end is reverted
+        replace(1, 4, "INC");
+        int end = document.getLength();
+        replace(end - 2, end - 1, "9");
+        replace(end - 2, end - 1, "5");
+        assertTrue(tracker.isChanged());
+        assertEquals(3, length(tracker.getComparedRange()));
+    }
+
+    @Test
+    public void savedSnapshotOfOlderTextIsComparedOnce() {
+        ReadOnlyStyledDocument<String, String, String> snapshot = document.snapshot();
+        UndoManager.UndoPosition position = undoManager.getCurrentPosition();
+        replace(1, 4, "INC");
+        tracker.markSaved(snapshot, position);
+        assertTrue(tracker.isChanged());
+        assertEquals(3, length(tracker.getComparedRange()));
+        tracker.markSaved();
+        assertFalse(tracker.isChanged());
+        assertEquals(0, length(tracker.getComparedRange()));
+    }
+
+}
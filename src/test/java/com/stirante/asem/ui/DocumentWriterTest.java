@@ -0,0 +1,134 @@
+package com.stirante.asem.ui;
+
+import org.fxmisc.richtext.model.ReadOnlyStyledDocument;
+import org.fxmisc.richtext.model.SegmentOps;
+import org.fxmisc.richtext.model.StyledDocument;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DocumentWriterTest {
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("writer");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static StyledDocument<Collection<String>, String, Collection<String>> document(String text) {
+        return ReadOnlyStyledDocument.fromString(text, Collections.<String>emptyList(), Collections.<String>emptyList(), SegmentOps.<Collection<String>>styledTextOps());
+    }
+
+    @Test
+    public void writesLinesWithCrLf() throws IOException {
+        Path target = dir.resolve("test.asm");
+        DocumentWriter.write(target, document("MOV A,B\nNOP\n"), progress -> {
+        });
+        assertArrayEquals("MOV A,B\r\nNOP\r\n".getBytes(), Files.readAllBytes(target));
+        //temporary file is gone
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void keepsPermissionsOfReplacedFile() throws IOException {
+        Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        Path target = dir.resolve("test.asm");
+        Files.write(target, "old".getBytes());
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rwxr-x---");
+        Files.setPosixFilePermissions(target, permissions);
+        DocumentWriter.write(target, document("NOP"), progress -> {
+        });
+        assertEquals(permissions, Files.getPosixFilePermissions(target));
+        assertArrayEquals("NOP".getBytes(), Files.readAllBytes(target));
+    }
+
+    @Test
+    public void newFileGetsDefaultPermissions() throws IOException {
+        Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        Path reference = Files.createFile(dir.resolve("reference.asm"));
+        Path target = dir.resolve("test.asm");
+        DocumentWriter.write(target, document("NOP"), progress -> {
+        });
+        assertEquals(Files.getPosixFilePermissions(reference), Files.getPosixFilePermissions(target));
+        assertTrue(Files.exists(target));
+    }
+
+    @Test
+    public void writesThroughSymbolicLink() throws IOException {
+        Path real = dir.resolve("real.asm");
+        Files.write(real, "old".getBytes());
+        Path link = dir.resolve("link.asm");
+        try {
+            Files.createSymbolicLink(link, real.getFileName());
+        } catch (UnsupportedOperationException | IOException e) {
+            Assume.assumeNoException(e);
+        }
+        DocumentWriter.write(link, document("NOP"), progress -> {
+        });
+        assertTrue(Files.isSymbolicLink(link));
+        assertArrayEquals("NOP".getBytes(), Files.readAllBytes(real));
+    }
+
+    @Test
+    public void createsTargetOfDanglingLink() throws IOException {
+        Path real = dir.resolve("real.asm");
+        Path link = dir.resolve("link.asm");
+        try {
+            Files.createSymbolicLink(link, real.getFileName());
+        } catch (UnsupportedOperationException | IOException e) {
+            Assume.assumeNoException(e);
+        }
+        DocumentWriter.write(link, document("NOP"), progress -> {
+        });
+        assertTrue(Files.isSymbolicLink(link));
+        assertArrayEquals("NOP".getBytes(), Files.readAllBytes(real));
+    }
+
+    @Test
+    public void readOnlyFileIsNotReplaced() throws IOException {
+        Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        Path target = dir.resolve("test.asm");
+        Files.write(target, "old".getBytes());
+        Files.setPosixFilePermissions(target, PosixFilePermissions.fromString("r--r--r--"));
+        //superuser can write anyway
+        Assume.assumeFalse(Files.isWritable(target));
+        try {
+            DocumentWriter.write(target, document("NOP"), progress -> {
+            });
+            fail("Read only file was replaced");
+        } catch (AccessDeniedException e) {
+            //expected
+        }
+        assertArrayEquals("old".getBytes(), Files.readAllBytes(target));
+    }
+
+}
@@ -0,0 +1,117 @@
+package com.stirante.asem.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.FutureTask;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Timer and FX application thread are replaced by queues, which the test runs by hand, so no real time passes and
+ * timers can fire in any order relative to start and cancel.
+ */
+public class DelayedTaskTest {
+    private static final long DELAY = 300;
+
+    //scheduled runnables and their futures, in the order they were scheduled
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final List<FutureTask<?>> timers = new ArrayList<>();
+    private final List<Long> delays = new ArrayList<>();
+    //runnables handed over to the thread, not run yet
+    private final Queue<Runnable> thread = new ArrayDeque<>();
+    private final List<Integer> calls = new ArrayList<>();
+    private DelayedTask task;
+
+    @Before
+    public void setUp() {
+        task = new DelayedTask(DELAY, thread::add, (runnable, delay) -> {
+            FutureTask<?> timer = new FutureTask<>(runnable, null);
+            scheduled.add(runnable);
+            timers.add(timer);
+            delays.add(delay);
+            return timer;
+        });
+    }
+
+    //fires timer even if it was cancelled, like a timer which fired just before being cancelled
+    private void fire(int index) {
+        scheduled.get(index).run();
+    }
+
+    private void runThread() {
+        while (!thread.isEmpty()) {
+            thread.poll().run();
+        }
+    }
+
+    private Runnable call(int value) {
+        return () -> calls.add(value);
+    }
+
+    @Test
+    public void restartCancelsPendingTimer() {
+        for (int i = 0; i < 5; i++) {
+            task.start(call(i));
+        }
+        assertEquals(5, timers.size());
+        assertEquals(Collections.nCopies(5, DELAY), delays);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(timers.get(i).isCancelled());
+        }
+        //even if replaced timers fire too late to be cancelled, only the last runnable runs
+        for (int i = 0; i < 5; i++) {
+            fire(i);
+        }
+        runThread();
+        assertEquals(Collections.singletonList(4), calls);
+    }
+
+    @Test
+    public void timerFiredBeforeRestartIsIgnored() {
+        task.start(call(1));
+        //timer fired, but its run is still waiting for the thread when the task is started again
+        fire(0);
+        task.start(call(2));
+        fire(1);
+        runThread();
+        assertEquals(Collections.singletonList(2), calls);
+    }
+
+    @Test
+    public void everyQuietPeriodRunsOnce() {
+        for (int i = 0; i < 3; i++) {
+            task.start(call(i));
+            fire(i);
+            runThread();
+        }
+        assertEquals(Arrays.asList(0, 1, 2), calls);
+    }
+
+    @Test
+    public void cancelledTaskDoesNotRun() {
+        task.start(call(1));
+        task.cancel();
+        assertTrue(timers.get(0).isCancelled());
+        fire(0);
+        runThread();
+        assertEquals(Collections.emptyList(), calls);
+    }
+
+    @Test
+    public void cancelAfterTimerFiredDropsPendingRun() {
+        task.start(call(1));
+        fire(0);
+        task.cancel();
+        runThread();
+        assertEquals(Collections.emptyList(), calls);
+    }
+
+}
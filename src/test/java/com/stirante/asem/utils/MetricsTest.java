@@ -0,0 +1,52 @@
+package com.stirante.asem.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsTest {
+
+    @Test
+    public void concurrentGetRegistersOneHistogram() throws Exception {
+        String name = "Test concurrent";
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<LatencyHistogram>> calls = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                calls.add(() -> Metrics.get(name));
+            }
+            LatencyHistogram first = Metrics.get(name);
+            for (Future<LatencyHistogram> future : pool.invokeAll(calls)) {
+                assertSame(first, future.get());
+            }
+        } finally {
+            pool.shutdownNow();
+            Metrics.remove(name);
+        }
+    }
+
+    @Test
+    public void removedHistogramIsRegisteredAgain() {
+        String name = "Test removed";
+        LatencyHistogram histogram = Metrics.get(name);
+        assertTrue(Metrics.getAll().containsKey(name));
+        Metrics.remove(name);
+        assertFalse(Metrics.getAll().containsKey(name));
+        LatencyHistogram again = Metrics.get(name);
+        assertNotSame(histogram, again);
+        assertEquals(again, Metrics.getAll().get(name));
+        Metrics.remove(name);
+    }
+
+}
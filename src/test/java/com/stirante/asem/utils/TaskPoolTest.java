@@ -0,0 +1,37 @@
+package com.stirante.asem.utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TaskPoolTest {
+
+    //exception of a task, which nobody waits for, can't disappear silently
+    @Test
+    public void exceptionOfTaskIsLogged() throws InterruptedException {
+        PrintStream err = System.err;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(out, true));
+        try {
+            Future<?> future = TaskPool.submit(TaskPool.Priority.ANALYSIS, () -> {
+                throw new IllegalStateException("task failed");
+            });
+            try {
+                future.get();
+                fail("Exception should be passed to the future too");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        } finally {
+            System.setErr(err);
+        }
+        assertTrue(out.toString().contains("task failed"));
+    }
+
+}
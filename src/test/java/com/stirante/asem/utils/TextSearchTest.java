@@ -0,0 +1,59 @@
+package com.stirante.asem.utils;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class TextSearchTest {
+
+    private static final String TEXT = "MOV A,#10h\nlabel: MOV R0,#0FFh\nmov b,a\n";
+
+    //replaceAll of TextSearch applied to the text, same as the one of String for case insensitive expression
+    private static void assertSameAsString(String regex, String replacement) {
+        List<TextSearch.Replacement> replacements = new TextSearch(regex, true).replaceAll(TEXT, replacement);
+        StringBuilder sb = new StringBuilder();
+        int position = 0;
+        for (TextSearch.Replacement r : replacements) {
+            sb.append(TEXT, position, r.getFrom()).append(r.getText());
+            position = r.getTo();
+        }
+        sb.append(TEXT, position, TEXT.length());
+        String expected = Pattern.compile(regex, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.MULTILINE)
+                .matcher(TEXT).replaceAll(replacement);
+        assertEquals(regex + " -> " + replacement, expected, sb.toString());
+    }
+
+    @Test
+    public void groupReferencesAreExpandedLikeMatcher() {
+        assertSameAsString("(mov) (\\w+),", "$2 <- $1,");
+        assertSameAsString("#(0?)([0-9A-F]+)h", "#$2$1H");
+        assertSameAsString("(?<op>mov)", "[${op}]");
+        assertSameAsString("(m)(o)(v)", "$30\\$\\\\");
+        assertSameAsString("(a)|(b)", "<$1$2>");
+    }
+
+    @Test
+    public void replaceUsesTextAroundMatch() {
+        TextSearch search = new TextSearch("(?<=#)(\\w+)", true);
+        TextRange match = search.findAll(TEXT).get(1);
+        assertEquals("<0FFh>", search.replace(TEXT, match, "<$1>"));
+    }
+
+    @Test
+    public void invalidReferencesThrowLikeMatcher() {
+        TextSearch search = new TextSearch("(mov)", true);
+        for (String replacement : new String[]{"$2", "${x}", "$", "\\", "${op", "$x"}) {
+            try {
+                search.replaceAll(TEXT, replacement);
+                fail(replacement);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                //expected
+            }
+        }
+    }
+
+}